@@ -10,6 +10,7 @@ import {
   FileText,
   Settings,
 } from 'lucide-react'
+import { auditService } from '../services/api'
 import { LineChart, Line, XAxis, YAxis, CartesianGrid, Tooltip, ResponsiveContainer, PieChart, Pie, Cell } from 'recharts'
 
 interface Stats {
@@ -31,26 +32,13 @@ const Dashboard = () => {
 
   const loadStats = async () => {
     try {
-      // Mock data for demo - replace with actual API call
+      const data = await auditService.getStats()
       setStats({
-        totalRequests: 1247,
-        blockedRequests: 89,
-        averageRiskScore: 42,
-        requestsToday: 156,
-        riskDistribution: [
-          { name: 'Low', value: 856 },
-          { name: 'Medium', value: 302 },
-          { name: 'High', value: 89 },
-        ],
-        requestsOverTime: [
-          { date: 'Mon', requests: 120, blocked: 8 },
-          { date: 'Tue', requests: 145, blocked: 12 },
-          { date: 'Wed', requests: 132, blocked: 9 },
-          { date: 'Thu', requests: 156, blocked: 11 },
-          { date: 'Fri', requests: 178, blocked: 15 },
-          { date: 'Sat', requests: 98, blocked: 5 },
-          { date: 'Sun', requests: 156, blocked: 10 },
-        ],
+        ...data,
+        requestsOverTime: data.requestsOverTime.map((bucket: { date: string; requests: number; blocked: number }) => ({
+          ...bucket,
+          date: new Date(bucket.date).toLocaleDateString(undefined, { weekday: 'short' }),
+        })),
       })
     } catch (error) {
       console.error('Error loading stats:', error)
@@ -59,7 +47,7 @@ const Dashboard = () => {
     }
   }
 
-  const COLORS = ['#22c55e', '#eab308', '#ef4444']
+  const COLORS = ['#22c55e', '#eab308', '#ef4444', '#991b1b']
 
   if (loading) {
     return (
@@ -116,14 +104,14 @@ const Dashboard = () => {
             <div className="flex items-center justify-between text-sm mb-1">
               <span className="text-slate-600">Block Rate</span>
               <span className="font-semibold text-slate-900">
-                {stats ? ((stats.blockedRequests / stats.totalRequests) * 100).toFixed(1) : 0}%
+                {stats?.totalRequests ? ((stats.blockedRequests / stats.totalRequests) * 100).toFixed(1) : 0}%
               </span>
             </div>
             <div className="w-full bg-slate-200 rounded-full h-2">
               <div
                 className="bg-danger-500 h-2 rounded-full transition-all"
                 style={{
-                  width: `${stats ? (stats.blockedRequests / stats.totalRequests) * 100 : 0}%`,
+                  width: `${stats?.totalRequests ? (stats.blockedRequests / stats.totalRequests) * 100 : 0}%`,
                 }}
               ></div>
             </div>
@@ -48,9 +48,9 @@ export const promptService = {
 }
 
 export const auditService = {
-  getLogs: async (page: number = 0, size: number = 20) => {
+  getLogs: async (cursor?: string, size: number = 20) => {
     const response = await api.get('/audit/logs', {
-      params: { page, size },
+      params: { cursor, size },
     })
     return response.data
   },
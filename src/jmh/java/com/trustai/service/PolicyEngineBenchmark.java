@@ -0,0 +1,124 @@
+package com.trustai.service;
+
+import com.trustai.config.PolicyProperties;
+import com.trustai.model.dto.request.SecurePromptRequest;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link PolicyEngine#evaluate} with compiled policies against the string-map evaluation it
+ * replaced, for a policy that gates models by allowed domains, with 2 and 200 domains. The model
+ * is allowed, matching the last domain, or rejected. Run with {@code -prof gc} for allocations.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PolicyEngineBenchmark {
+
+    @Param({"2", "200"})
+    public int domains;
+
+    @Param({"allowed", "rejected"})
+    public String model;
+
+    private PolicyEngine engine;
+    private Map<String, Map<String, Object>> policies;
+    private SecurePromptRequest request;
+
+    @Setup
+    public void setUp() {
+        List<String> allowedDomains = new ArrayList<>();
+        for (int i = 0; i < domains - 2; i++) {
+            allowedDomains.add("models" + i + ".example.com");
+        }
+        allowedDomains.add("OpenAI.com");
+        allowedDomains.add("anthropic.com");
+
+        PolicyProperties properties = new PolicyProperties();
+        PolicyProperties.Policy gated = new PolicyProperties.Policy();
+        gated.setAllowExternalApis(false);
+        gated.setMaxPromptLength(8000);
+        gated.setAllowedDomains(allowedDomains);
+        properties.getPolicies().put("gated", gated);
+        properties.setDefaultPolicy("gated");
+        engine = new PolicyEngine(properties);
+        engine.init();
+
+        // The shape the old SpEL binding produced
+        policies = Map.of("gated", Map.of(
+                "allow-external-apis", false,
+                "max-prompt-length", 8000,
+                "allowed-domains", allowedDomains));
+
+        request = SecurePromptRequest.builder()
+                .prompt("Summarise the quarterly report and list three risks.")
+                .model("allowed".equals(model) ? "claude-3-opus.Anthropic.com" : "mistral-large.mistral.ai")
+                .policy("gated")
+                .build();
+    }
+
+    @Benchmark
+    public PolicyEngine.PolicyResult compiled() {
+        return engine.evaluate(request);
+    }
+
+    @Benchmark
+    public PolicyEngine.PolicyResult stringMap() {
+        String defaultPolicy = "gated";
+        String policyName = request.getPolicy() != null ? request.getPolicy() : defaultPolicy;
+        Map<String, Object> policy = policies.getOrDefault(policyName, policies.get(defaultPolicy));
+
+        if (policy == null) {
+            return PolicyEngine.PolicyResult.builder()
+                    .allowed(false)
+                    .reason("Policy not found: " + policyName)
+                    .build();
+        }
+
+        List<String> violations = new ArrayList<>();
+
+        Integer maxLength = (Integer) policy.get("max-prompt-length");
+        if (maxLength != null && request.getPrompt().length() > maxLength) {
+            violations.add("Prompt length (" + request.getPrompt().length() + ") exceeds maximum (" + maxLength + ")");
+        }
+
+        Boolean allowExternalApis = (Boolean) policy.get("allow-external-apis");
+        if (allowExternalApis != null && !allowExternalApis && request.getModel() != null) {
+            @SuppressWarnings("unchecked")
+            List<String> allowedDomains = (List<String>) policy.get("allowed-domains");
+            if (allowedDomains == null || allowedDomains.isEmpty()
+                    || !allowedDomains.contains("*") && !isAllowedDomain(request.getModel(), allowedDomains)) {
+                violations.add("External API access not allowed for model: " + request.getModel());
+            }
+        }
+
+        boolean allowed = violations.isEmpty();
+        return PolicyEngine.PolicyResult.builder()
+                .allowed(allowed)
+                .violations(violations)
+                .reason(allowed ? null : String.join("; ", violations))
+                .policy(policyName)
+                .build();
+    }
+
+    private static boolean isAllowedDomain(String model, List<String> allowedDomains) {
+        return allowedDomains.stream().anyMatch(domain -> model.toLowerCase().contains(domain.toLowerCase()));
+    }
+}
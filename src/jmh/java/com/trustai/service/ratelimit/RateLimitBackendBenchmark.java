@@ -0,0 +1,109 @@
+package com.trustai.service.ratelimit;
+
+import com.trustai.config.RateLimitProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import redis.embedded.RedisServer;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency distribution (p50, p99, ...) of one user + IP rate limit check with the local backend
+ * and with the Redis backend at batch sizes 1 and 10, against a Redis server on localhost
+ * started from the embedded-redis binary. At teardown the Redis runs print the Redis calls made
+ * per request, reserves and returns together.
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RateLimitBackendBenchmark {
+
+    private static final int USERS = 100;
+    private static final int LIMIT = 10_000_000;
+
+    @Param({"local", "redis-batch-1", "redis-batch-10"})
+    public String backend;
+
+    private RedisServer redis;
+    private LettuceConnectionFactory connectionFactory;
+    private SimpleMeterRegistry registry;
+    private RateLimitBackend rateLimit;
+    private RedisRateLimitBackend redisBackend;
+    private RateLimitRequest[] requests;
+    private int next;
+    private long checks;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        RateLimitProperties properties = new RateLimitProperties();
+        registry = new SimpleMeterRegistry();
+        LocalRateLimitBackend local = new LocalRateLimitBackend(properties, registry);
+        local.init();
+        rateLimit = local;
+        if (backend.startsWith("redis")) {
+            properties.setMode(RateLimitProperties.Mode.DISTRIBUTED);
+            properties.getDistributed().setBatchSize(Integer.parseInt(backend.substring("redis-batch-".length())));
+            int port;
+            try (ServerSocket socket = new ServerSocket(0)) {
+                port = socket.getLocalPort();
+            }
+            redis = RedisServer.newRedisServer().port(port).bind("127.0.0.1")
+                    .setting("save \"\"").setting("appendonly no").build();
+            redis.start();
+            connectionFactory = new LettuceConnectionFactory(new RedisStandaloneConfiguration("127.0.0.1", port));
+            connectionFactory.afterPropertiesSet();
+            connectionFactory.start();
+            redisBackend = new RedisRateLimitBackend(properties, connectionFactory, local, registry);
+            redisBackend.init();
+            rateLimit = redisBackend;
+        }
+
+        requests = new RateLimitRequest[USERS];
+        for (int i = 0; i < USERS; i++) {
+            requests[i] = RateLimitRequest.builder()
+                    .add(RateLimitRequest.Dimension.USER, "user-" + i, LIMIT)
+                    .add(RateLimitRequest.Dimension.IP, "10.0.0." + i, LIMIT)
+                    .build();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        if (redisBackend != null) {
+            double calls = registry.find("rate.limit.redis.calls").timers().stream()
+                    .mapToLong(timer -> timer.count()).sum();
+            System.out.printf("%n%s: %.3f Redis calls per request over %d requests%n",
+                    backend, calls / checks, checks);
+            redisBackend.shutdown();
+            connectionFactory.destroy();
+            redis.stop();
+        }
+    }
+
+    @Benchmark
+    public long tryConsume() {
+        checks++;
+        RateLimitRequest request = requests[next];
+        next = (next + 1) % USERS;
+        return rateLimit.tryConsume(request, 1);
+    }
+}
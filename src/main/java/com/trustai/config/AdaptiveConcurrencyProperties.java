@@ -0,0 +1,50 @@
+package com.trustai.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Latency-driven concurrency limits bound from {@code app.security.adaptive-concurrency}
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "app.security.adaptive-concurrency")
+public class AdaptiveConcurrencyProperties {
+
+    private boolean enabled = true;
+
+    private int initialLimit = 20;
+
+    private int minLimit = 4;
+
+    private int maxLimit = 200;
+
+    /**
+     * Weight of each new estimate in the limit, 0..1; lower values react more slowly
+     */
+    private double smoothing = 0.2;
+
+    /**
+     * Samples between probes that halve the limit briefly to measure latency without queueing
+     */
+    private int probeInterval = 600;
+
+    /**
+     * How much slower than the no-load latency requests may get before the limit shrinks
+     */
+    private double rttTolerance = 1.5;
+
+    private long retryAfterSeconds = 1;
+
+    /**
+     * Endpoint groups, each with its own limit; the first group with a matching path pattern applies
+     */
+    private Map<String, List<String>> groups = new LinkedHashMap<>(Map.of(
+            "secure-prompt", List.of("/api/v1/secure-prompt/**"),
+            "audit", List.of("/api/v1/audit/logs/**", "/api/v1/audit/stats", "/api/v1/audit/search")));
+}
@@ -0,0 +1,54 @@
+package com.trustai.config;
+
+import com.trustai.model.entity.User;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Admission control settings bound from {@code app.security.admission}
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "app.security.admission")
+public class AdmissionProperties {
+
+    private boolean enabled = true;
+
+    /**
+     * Secure-prompt requests processed at once across all plans
+     */
+    private int maxConcurrent = 32;
+
+    /**
+     * Requests waiting for a slot across all plans; beyond it the lowest tier is shed first
+     */
+    private int queueCapacity = 200;
+
+    private long retryAfterSeconds = 1;
+
+    private Map<User.Plan, PlanLimits> plans = new EnumMap<>(Map.of(
+            User.Plan.FREE, new PlanLimits(8, 200, 1),
+            User.Plan.PREMIUM, new PlanLimits(16, 1000, 4),
+            User.Plan.ENTERPRISE, new PlanLimits(32, 2000, 8)));
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class PlanLimits {
+
+        /** Bulkhead: requests of this plan processed at once */
+        private int maxConcurrent;
+
+        /** Time budget in the queue before the request is shed */
+        private long maxWaitMs;
+
+        /** Share of freed slots given to this plan's queue, and its priority when shedding */
+        private int weight;
+    }
+}
@@ -0,0 +1,81 @@
+package com.trustai.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Audit settings bound from {@code app.security.audit}
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "app.security.audit")
+public class AuditProperties {
+
+    private boolean enabled = true;
+
+    private int retentionDays = 90;
+
+    private boolean logSensitiveData = false;
+
+    private Writer writer = new Writer();
+
+    private Partitions partitions = new Partitions();
+
+    private Export export = new Export();
+
+    @Data
+    public static class Writer {
+
+        /** Directory of the local log audit events are written to before they reach the database */
+        private String directory = "data/audit-wal";
+
+        private int segmentSizeMb = 64;
+
+        /** Upper bound on log segments kept on disk; beyond it new events are dropped */
+        private int maxSegments = 16;
+
+        /** Rows per INSERT statement */
+        private int batchSize = 500;
+
+        /** Longest time an event waits for its batch to fill before it is written anyway */
+        private long flushIntervalMs = 200;
+
+        /** Longest pause between attempts while the database is unavailable */
+        private long maxRetryBackoffMs = 5_000;
+    }
+
+    @Data
+    public static class Partitions {
+
+        /** Maintain monthly partitions of audit_logs; PostgreSQL only */
+        private boolean enabled = true;
+
+        /** Monthly partitions kept ready beyond the current month */
+        private int premakeMonths = 3;
+
+        /**
+         * What happens to partitions past retention: DROP deletes them, DETACH keeps them as plain
+         * tables. Their hourly rollups are deleted either way; with DETACH the audit_bodies they
+         * refer to are kept until the operator deletes them
+         */
+        private RetentionAction retentionAction = RetentionAction.DROP;
+
+        /** When partitions are created ahead and expired ones removed */
+        private String cron = "0 15 3 * * *";
+    }
+
+    @Data
+    public static class Export {
+
+        /** Rows fetched per round trip, and per flush of the response */
+        private int fetchSize = 1000;
+
+        /** Exports running at once; each holds a database connection until it is done */
+        private int maxConcurrent = 2;
+    }
+
+    public enum RetentionAction {
+        DROP, DETACH
+    }
+}
@@ -0,0 +1,38 @@
+package com.trustai.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Injection detection settings bound from {@code app.security.injection}
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "app.security.injection")
+public class InjectionProperties {
+
+    private boolean enabled = true;
+
+    /**
+     * Rules used when no patterns file is configured, or the file does not exist
+     */
+    private List<String> patterns = new ArrayList<>();
+
+    /**
+     * Optional file with one pattern per line; blank lines and lines starting with # are ignored
+     */
+    private String patternsFile;
+
+    /**
+     * How often the patterns file is checked for changes
+     */
+    private long reloadIntervalMs = 30000;
+
+    private long maxStepsPerPattern = 1_000_000L;
+
+    private boolean rejectSlowPatterns = true;
+}
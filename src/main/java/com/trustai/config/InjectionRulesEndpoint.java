@@ -0,0 +1,45 @@
+package com.trustai.config;
+
+import com.trustai.service.PromptSanitizationService;
+import com.trustai.service.PromptSanitizationService.RuleSet;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Actuator endpoint to inspect and reload the injection rules ({@code /actuator/injectionrules})
+ */
+@Component
+@Endpoint(id = "injectionrules")
+@RequiredArgsConstructor
+public class InjectionRulesEndpoint {
+
+    private final PromptSanitizationService sanitizationService;
+
+    @ReadOperation
+    public Map<String, Object> rules() {
+        return describe(sanitizationService.currentRuleSet());
+    }
+
+    @WriteOperation
+    public Map<String, Object> reload() {
+        return describe(sanitizationService.reload());
+    }
+
+    private Map<String, Object> describe(RuleSet ruleSet) {
+        Map<String, Object> description = new LinkedHashMap<>();
+        description.put("version", ruleSet.getVersion());
+        description.put("fingerprint", ruleSet.getFingerprint());
+        description.put("source", ruleSet.getSource());
+        description.put("loadedAt", ruleSet.getLoadedAt());
+        description.put("rules", ruleSet.getMatcher().ids());
+        description.put("rejected", ruleSet.getMatcher().rejected());
+        description.put("slow", ruleSet.getMatcher().slow());
+        return description;
+    }
+}
@@ -1,5 +1,6 @@
 package com.trustai.config;
 
+import com.trustai.util.ClientIpResolver;
 import com.trustai.util.StructuredLogger;
 import jakarta.servlet.Filter;
 import jakarta.servlet.FilterChain;
@@ -41,7 +42,7 @@ public class LoggingConfig {
                     MDC.put("correlationId", correlationId);
                     MDC.put("endpoint", request.getRequestURI());
                     MDC.put("method", request.getMethod());
-                    MDC.put("ip", getClientIp(request));
+                    MDC.put("ip", ClientIpResolver.resolve(request));
                     
                     // Add to response header
                     response.setHeader("X-Correlation-ID", correlationId);
@@ -53,17 +54,6 @@ public class LoggingConfig {
                     MDC.clear();
                 }
             }
-            
-            private String getClientIp(HttpServletRequest request) {
-                String ip = request.getHeader("X-Forwarded-For");
-                if (ip == null || ip.isEmpty() || "unknown".equalsIgnoreCase(ip)) {
-                    ip = request.getHeader("X-Real-IP");
-                }
-                if (ip == null || ip.isEmpty() || "unknown".equalsIgnoreCase(ip)) {
-                    ip = request.getRemoteAddr();
-                }
-                return ip != null ? ip.split(",")[0].trim() : "unknown";
-            }
         };
     }
 }
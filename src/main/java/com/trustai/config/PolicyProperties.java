@@ -0,0 +1,41 @@
+package com.trustai.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Policy definitions bound from {@code app.security.policy}
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "app.security.policy")
+public class PolicyProperties {
+
+    private boolean enabled = true;
+
+    private String defaultPolicy = "restrictive";
+
+    private Map<String, Policy> policies = new LinkedHashMap<>();
+
+    /**
+     * Upper bound on memoized (policy, model) decisions per policy
+     */
+    private long modelDecisionCacheSize = 1_000;
+
+    @Data
+    public static class Policy {
+
+        /** Unset means external APIs are not restricted */
+        private Boolean allowExternalApis;
+
+        private Integer maxPromptLength;
+
+        /** Model names containing any of these (case-insensitive) are allowed; "*" allows all */
+        private List<String> allowedDomains;
+    }
+}
@@ -0,0 +1,122 @@
+package com.trustai.config;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Rate limiting settings bound from {@code app.security.rate-limit}
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "app.security.rate-limit")
+public class RateLimitProperties {
+
+    private boolean enabled = true;
+
+    /**
+     * {@code local} limits per instance; {@code distributed} shares buckets through Redis
+     */
+    private Mode mode = Mode.LOCAL;
+
+    /**
+     * Cost units per window for users without a plan or with a plan missing from {@link #limits}
+     */
+    private int defaultLimit = 100;
+
+    /**
+     * Window length in seconds
+     */
+    private int defaultWindow = 60;
+
+    /**
+     * Cost units per window by lower-case plan name
+     */
+    private Map<String, Integer> limits = new HashMap<>(Map.of("free", 50, "premium", 500, "enterprise", 10000));
+
+    /**
+     * Upper bound on buckets kept in memory
+     */
+    private long maxBuckets = 100_000;
+
+    /**
+     * Buckets unused for this long are dropped; never shorter than the window, so a dropped
+     * bucket would have been full again anyway
+     */
+    private long idleExpirySeconds = 600;
+
+    /**
+     * Failed CAS attempts on a local bucket before a thread backs off, and half the attempts
+     * before contending threads are serialized
+     */
+    private int spinLimit = 8;
+
+    /**
+     * Limit per client IP, shared by all users behind it
+     */
+    private DimensionLimit ip = new DimensionLimit(true, 300);
+
+    /**
+     * Limit per endpoint, shared by all callers
+     */
+    private DimensionLimit endpoint = new DimensionLimit(false, 10_000);
+
+    /**
+     * Limit per organization, shared by its members; users without one are not limited by it
+     */
+    private DimensionLimit organization = new DimensionLimit(true, 5_000);
+
+    private Cost cost = new Cost();
+
+    private Distributed distributed = new Distributed();
+
+    public enum Mode {
+        LOCAL, DISTRIBUTED
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class DimensionLimit {
+
+        private boolean enabled;
+
+        /** Cost units per window */
+        private int limit;
+    }
+
+    /**
+     * A request costs {@code 1 + promptLength / charsPerUnit} units, at most {@code maxUnits};
+     * all limits are expressed in these units
+     */
+    @Data
+    public static class Cost {
+
+        /** Roughly 500 LLM tokens; 0 makes every request cost one unit */
+        private int charsPerUnit = 2000;
+
+        private int maxUnits = 16;
+    }
+
+    @Data
+    public static class Distributed {
+
+        private String keyPrefix = "rate-limit:";
+
+        /**
+         * Most tokens an instance reserves from Redis at once; actual batches are smaller for
+         * small limits, see {@code RedisRateLimitBackend}
+         */
+        private int batchSize = 10;
+
+        /**
+         * Reserved tokens unused for this long are returned to Redis
+         */
+        private long reservationTtlMs = 1000;
+    }
+}
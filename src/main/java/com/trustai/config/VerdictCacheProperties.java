@@ -0,0 +1,30 @@
+package com.trustai.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Prompt verdict cache settings bound from {@code app.security.verdict-cache}
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "app.security.verdict-cache")
+public class VerdictCacheProperties {
+
+    private boolean enabled = true;
+
+    /**
+     * Approximate memory of the verdicts kept in the in-process tier, sanitized prompts included
+     */
+    private long maxLocalMb = 32;
+
+    private long localTtlSeconds = 300;
+
+    /**
+     * Whether verdicts are shared between instances through Redis
+     */
+    private boolean redisEnabled = true;
+
+    private long redisTtlSeconds = 600;
+}
@@ -1,21 +1,36 @@
 package com.trustai.controller;
 
+import com.trustai.config.AuditProperties;
+import com.trustai.exception.CustomException;
+import com.trustai.exception.ErrorCode;
+import com.trustai.model.dto.response.AuditLogSummary;
+import com.trustai.model.dto.response.AuditStatsResponse;
+import com.trustai.model.dto.response.CursorPageResponse;
 import com.trustai.model.entity.AuditLog;
 import com.trustai.model.entity.User;
+import com.trustai.repository.AuditLogCursor;
+import com.trustai.repository.AuditLogFilter;
 import com.trustai.repository.AuditLogRepository;
+import com.trustai.service.audit.AuditBodyStore;
+import com.trustai.service.audit.AuditExporter;
+import com.trustai.service.audit.AuditSearchService;
+import com.trustai.service.audit.AuditStatsService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.Pageable;
-import org.springframework.data.web.PageableDefault;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.time.LocalDateTime;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
 
 @RestController
 @RequestMapping("/api/v1/audit")
@@ -24,25 +39,133 @@ import java.time.LocalDateTime;
 @SecurityRequirement(name = "bearerAuth")
 public class AuditController {
 
+    private static final int MAX_PAGE_SIZE = 100;
+
     private final AuditLogRepository auditLogRepository;
+    private final AuditProperties auditProperties;
+    private final AuditBodyStore auditBodyStore;
+    private final AuditStatsService auditStatsService;
+    private final AuditExporter auditExporter;
+    private final AuditSearchService auditSearchService;
 
     @GetMapping("/logs")
-    @Operation(summary = "Get audit logs for the authenticated user")
-    public ResponseEntity<Page<AuditLog>> getAuditLogs(
+    @Operation(summary = "List audit logs of the authenticated user, newest first; full prompt and response via /logs/{id}")
+    public ResponseEntity<CursorPageResponse<AuditLogSummary>> getAuditLogs(
+            @AuthenticationPrincipal User user,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startDate,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endDate,
+            @RequestParam(required = false) AuditLog.RiskLevel riskLevel,
+            @RequestParam(required = false) Boolean blocked,
+            @RequestParam(defaultValue = "false") boolean includeTotal
+    ) {
+        // Always bounded in time so that only the matching monthly partitions are scanned
+        LocalDateTime end = endDate != null ? endDate : LocalDateTime.now();
+        LocalDateTime start = startDate != null ? startDate : end.minusDays(auditProperties.getRetentionDays());
+        AuditLogFilter filter = new AuditLogFilter(user.getEmail(), start, end, riskLevel, blocked);
+        int limit = Math.min(Math.max(size, 1), MAX_PAGE_SIZE);
+
+        // One row more than asked for tells whether there is a next page without counting
+        List<AuditLogSummary> logs = auditLogRepository.findPage(filter,
+                cursor != null ? AuditLogCursor.decode(cursor) : null, limit + 1);
+        boolean hasMore = logs.size() > limit;
+        if (hasMore) {
+            logs = logs.subList(0, limit);
+        }
+        AuditLogSummary last = logs.isEmpty() ? null : logs.get(logs.size() - 1);
+        return ResponseEntity.ok(CursorPageResponse.<AuditLogSummary>builder()
+                .content(logs)
+                .hasMore(hasMore)
+                .nextCursor(hasMore ? new AuditLogCursor(last.getTimestamp(), last.getId()).encode() : null)
+                .totalElements(includeTotal ? auditLogRepository.count(filter) : null)
+                .build());
+    }
+
+    @GetMapping("/search")
+    @Operation(summary = "Search the authenticated user's audited prompts, by default over the last 7 days, newest first; "
+            + "supports \"quoted phrases\", or, and -excluded words")
+    public ResponseEntity<CursorPageResponse<AuditLogSummary>> search(
+            @AuthenticationPrincipal User user,
+            @RequestParam String q,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startDate,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endDate,
+            @RequestParam(required = false) AuditLog.RiskLevel riskLevel,
+            @RequestParam(required = false) Boolean blocked
+    ) {
+        LocalDateTime end = endDate != null ? endDate : LocalDateTime.now();
+        LocalDateTime start = startDate != null ? startDate : end.minusDays(7);
+        AuditLogFilter filter = new AuditLogFilter(user.getEmail(), start, end, riskLevel, blocked);
+        int limit = Math.min(Math.max(size, 1), MAX_PAGE_SIZE);
+
+        List<AuditLogSummary> logs = auditSearchService.search(filter, q,
+                cursor != null ? AuditLogCursor.decode(cursor) : null, limit + 1);
+        boolean hasMore = logs.size() > limit;
+        if (hasMore) {
+            logs = logs.subList(0, limit);
+        }
+        AuditLogSummary last = logs.isEmpty() ? null : logs.get(logs.size() - 1);
+        return ResponseEntity.ok(CursorPageResponse.<AuditLogSummary>builder()
+                .content(logs)
+                .hasMore(hasMore)
+                .nextCursor(hasMore ? new AuditLogCursor(last.getTimestamp(), last.getId()).encode() : null)
+                .build());
+    }
+
+    @GetMapping("/export")
+    @Operation(summary = "Stream the authenticated user's audit logs as NDJSON or CSV, oldest first; "
+            + "resume after a disconnect with afterTimestamp and afterId of the last row received")
+    public void exportAuditLogs(
             @AuthenticationPrincipal User user,
-            @PageableDefault(size = 20) Pageable pageable,
+            @RequestParam(defaultValue = "NDJSON") AuditExporter.Format format,
             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startDate,
-            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endDate
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endDate,
+            @RequestParam(required = false) AuditLog.RiskLevel riskLevel,
+            @RequestParam(required = false) Boolean blocked,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime afterTimestamp,
+            @RequestParam(required = false) Long afterId,
+            @RequestParam(defaultValue = "false") boolean gzip,
+            HttpServletResponse response
+    ) throws IOException {
+        if ((afterTimestamp == null) != (afterId == null)) {
+            throw new CustomException(ErrorCode.VAL_MISSING_REQUIRED, "afterTimestamp and afterId go together");
+        }
+        LocalDateTime end = endDate != null ? endDate : LocalDateTime.now();
+        LocalDateTime start = startDate != null ? startDate : end.minusDays(auditProperties.getRetentionDays());
+        AuditLogFilter filter = new AuditLogFilter(user.getEmail(), start, end, riskLevel, blocked);
+        AuditLogCursor after = afterId != null ? new AuditLogCursor(afterTimestamp, afterId) : null;
+
+        auditExporter.export(filter, after, format, () -> {
+            String filename = "audit-logs." + format.extension() + (gzip ? ".gz" : "");
+            response.setContentType(gzip ? "application/gzip" : format.contentType() + ";charset=UTF-8");
+            response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + filename + "\"");
+            OutputStream out = response.getOutputStream();
+            // Sync flush so every flushed chunk reaches the client
+            return gzip ? new GZIPOutputStream(out, 8192, true) : out;
+        });
+    }
+
+    @GetMapping("/stats")
+    @Operation(summary = "Get audit statistics for the authenticated user, by default over the last 7 days; "
+            + "at most 31 days by hour or 366 days by day")
+    public ResponseEntity<AuditStatsResponse> getStats(
+            @AuthenticationPrincipal User user,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startDate,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endDate,
+            @RequestParam(defaultValue = "DAY") AuditStatsService.Granularity granularity
     ) {
-        Page<AuditLog> logs;
-        if (startDate != null && endDate != null) {
-            logs = auditLogRepository.findByUserIdAndTimestampBetween(
-                    user.getEmail(), startDate, endDate, pageable
-            );
-        } else {
-            logs = auditLogRepository.findByUserId(user.getEmail(), pageable);
+        LocalDateTime end = endDate != null ? endDate : LocalDateTime.now();
+        LocalDateTime start = startDate != null ? startDate : end.minusDays(7);
+        if (!start.isBefore(end)) {
+            throw new CustomException(ErrorCode.VAL_INVALID_INPUT, "startDate must be before endDate");
+        }
+        if (granularity.buckets(start, end) > granularity.maxBuckets()) {
+            throw new CustomException(ErrorCode.VAL_INVALID_INPUT, "At most " + granularity.maxBuckets() + " "
+                    + granularity.name().toLowerCase() + " buckets per request; narrow startDate and endDate");
         }
-        return ResponseEntity.ok(logs);
+        return ResponseEntity.ok(auditStatsService.stats(user.getEmail(), start, end, granularity));
     }
 
     @GetMapping("/logs/{id}")
@@ -53,6 +176,10 @@ public class AuditController {
     ) {
         return auditLogRepository.findById(id)
                 .filter(log -> log.getUserId().equals(user.getEmail()) || user.getRole() == com.trustai.model.entity.User.Role.ADMIN)
+                .map(log -> {
+                    auditBodyStore.resolve(List.of(log));
+                    return log;
+                })
                 .map(ResponseEntity::ok)
                 .orElse(ResponseEntity.notFound().build());
     }
@@ -6,6 +6,12 @@ import com.trustai.model.entity.User;
 import com.trustai.service.*;
 import com.trustai.service.PolicyEngine.PolicyResult;
 import com.trustai.service.RiskScoreCalculator.RiskAssessment;
+import com.trustai.service.admission.AdmissionGate;
+import com.trustai.service.cache.PromptVerdict;
+import com.trustai.service.cache.PromptVerdictCache;
+import com.trustai.service.prompt.PromptFeatureExtractor;
+import com.trustai.service.prompt.PromptFeatures;
+import com.trustai.util.ClientIpResolver;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
@@ -36,6 +42,8 @@ public class SecurePromptController {
     private final PolicyEngine policyEngine;
     private final RateLimitService rateLimitService;
     private final AuditService auditService;
+    private final PromptVerdictCache verdictCache;
+    private final AdmissionGate admissionGate;
 
     @PostMapping
     @Operation(summary = "Process a secure AI prompt with full security checks")
@@ -49,11 +57,13 @@ public class SecurePromptController {
         metadata.put("requestId", requestId);
         metadata.put("model", request.getModel());
 
-        // Rate limiting check
-        RateLimitService.ConsumptionProbe rateLimit = rateLimitService.tryConsumeAndReturnRemaining(user);
+        // Rate limiting check - user, IP, endpoint and organization in one evaluation, weighted by prompt size
+        RateLimitService.ConsumptionProbe rateLimit = rateLimitService.tryConsume(user,
+                ClientIpResolver.resolve(httpRequest), httpRequest.getMethod() + " " + httpRequest.getRequestURI(),
+                request.getPrompt().length());
         if (!rateLimit.isConsumed()) {
-            HttpHeaders headers = new HttpHeaders();
-            headers.add("X-Rate-Limit-Remaining", String.valueOf(rateLimit.getRemaining()));
+            HttpHeaders headers = rateLimitHeaders(rateLimit);
+            headers.add(HttpHeaders.RETRY_AFTER, String.valueOf(rateLimit.getSecondsUntilReset()));
             return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
                     .headers(headers)
                     .body(SecurePromptResponse.builder()
@@ -63,71 +73,93 @@ public class SecurePromptController {
                             .build());
         }
 
-        // Policy evaluation
-        PolicyResult policyResult = policyEngine.evaluate(request);
-        if (!policyResult.isAllowed()) {
+        // Admission - bounded concurrency per plan; throws ServiceOverloadedException (503) when shed
+        try (AdmissionGate.Permit permit = admissionGate.acquire(user.getPlan())) {
+            // Policy evaluation
+            PolicyResult policyResult = policyEngine.evaluate(request);
+            if (!policyResult.isAllowed()) {
+                auditService.logRequest(
+                        user, httpRequest.getRequestURI(), httpRequest.getMethod(),
+                        request.getPrompt(), null, 100, com.trustai.model.entity.AuditLog.RiskLevel.CRITICAL,
+                        true, policyResult.getReason(), null, httpRequest, metadata
+                );
+                return ResponseEntity.status(HttpStatus.FORBIDDEN)
+                        .body(SecurePromptResponse.builder()
+                                .requestId(requestId)
+                                .blocked(true)
+                                .blockReason(policyResult.getReason())
+                                .build());
+            }
+
+            // Sanitization and risk assessment, reused for identical prompts under the same rules
+            Map<String, Object> riskContext = new HashMap<>();
+            riskContext.put("user_plan", user.getPlan().name());
+            PromptVerdict verdict = verdictCache.get(request.getPrompt(), policyResult.getPolicy(), request.getModel(),
+                    riskContext, () -> assess(request.getPrompt(), riskContext));
+            String sanitizedPrompt = verdict.getSanitizedPrompt();
+            RiskAssessment riskAssessment = verdict.toRiskAssessment();
+
+            metadata.put("riskReasons", riskAssessment.getReasons());
+            metadata.put("policy", policyResult.getPolicy());
+
+            // Block if risk is too high
+            boolean shouldBlock = riskAssessment.getLevel() == com.trustai.model.entity.AuditLog.RiskLevel.CRITICAL ||
+                    riskAssessment.getScore() >= 90;
+
+            String response = null;
+            if (!shouldBlock) {
+                // In a real implementation, this would call the LLM API
+                response = "This is a mock response. In production, this would call the LLM API with the sanitized prompt.";
+            }
+
+            // Audit logging - appended to the local write-ahead log, written to the database in the background
             auditService.logRequest(
                     user, httpRequest.getRequestURI(), httpRequest.getMethod(),
-                    request.getPrompt(), null, 100, com.trustai.model.entity.AuditLog.RiskLevel.CRITICAL,
-                    true, policyResult.getReason(), null, httpRequest, metadata
+                    request.getPrompt(), response, riskAssessment.getScore(),
+                    riskAssessment.getLevel(), shouldBlock,
+                    shouldBlock ? "High risk score: " + riskAssessment.getScore() : null,
+                    sanitizedPrompt, httpRequest, metadata
             );
-            return ResponseEntity.status(HttpStatus.FORBIDDEN)
-                    .body(SecurePromptResponse.builder()
-                            .requestId(requestId)
-                            .blocked(true)
-                            .blockReason(policyResult.getReason())
-                            .build());
-        }
 
-        // Sanitization
-        String sanitizedPrompt = sanitizationService.sanitize(request.getPrompt());
-        
-        // Risk assessment
-        Map<String, Object> riskContext = new HashMap<>();
-        riskContext.put("user_plan", user.getPlan().name());
-        RiskAssessment riskAssessment = riskCalculator.calculateRisk(request.getPrompt(), riskContext);
-        
-        metadata.put("riskReasons", riskAssessment.getReasons());
-        metadata.put("policy", policyResult.getPolicy());
-
-        // Block if risk is too high
-        boolean shouldBlock = riskAssessment.getLevel() == com.trustai.model.entity.AuditLog.RiskLevel.CRITICAL ||
-                             riskAssessment.getScore() >= 90;
-
-        String response = null;
-        if (!shouldBlock) {
-            // In a real implementation, this would call the LLM API
-            response = "This is a mock response. In production, this would call the LLM API with the sanitized prompt.";
-        }
+            HttpHeaders headers = rateLimitHeaders(rateLimit);
+            headers.add("X-Risk-Score", String.valueOf(riskAssessment.getScore()));
 
-        // Audit logging (async)
-        auditService.logRequest(
-                user, httpRequest.getRequestURI(), httpRequest.getMethod(),
-                request.getPrompt(), response, riskAssessment.getScore(),
-                riskAssessment.getLevel(), shouldBlock,
-                shouldBlock ? "High risk score: " + riskAssessment.getScore() : null,
-                sanitizedPrompt, httpRequest, metadata
-        );
+            SecurePromptResponse secureResponse = SecurePromptResponse.builder()
+                    .requestId(requestId)
+                    .sanitizedPrompt(sanitizedPrompt)
+                    .response(response)
+                    .riskScore(riskAssessment.getScore())
+                    .riskLevel(riskAssessment.getLevel())
+                    .blocked(shouldBlock)
+                    .blockReason(shouldBlock ? "High risk score: " + riskAssessment.getScore() : null)
+                    .timestamp(java.time.LocalDateTime.now())
+                    .metadata(metadata)
+                    .build();
+
+            return ResponseEntity.ok()
+                    .headers(headers)
+                    .body(secureResponse);
+        }
+    }
 
+    private static HttpHeaders rateLimitHeaders(RateLimitService.ConsumptionProbe rateLimit) {
         HttpHeaders headers = new HttpHeaders();
         headers.add("X-Rate-Limit-Remaining", String.valueOf(rateLimit.getRemaining()));
-        headers.add("X-Risk-Score", String.valueOf(riskAssessment.getScore()));
+        headers.add("X-Rate-Limit-Reset", String.valueOf(rateLimit.getSecondsUntilReset()));
+        return headers;
+    }
 
-        SecurePromptResponse secureResponse = SecurePromptResponse.builder()
-                .requestId(requestId)
-                .sanitizedPrompt(sanitizedPrompt)
-                .response(response)
+    private PromptVerdict assess(String prompt, Map<String, Object> riskContext) {
+        // One lexical pass over the prompt, shared by sanitization and risk scoring
+        PromptFeatures features = PromptFeatureExtractor.extract(prompt);
+        RiskAssessment riskAssessment = riskCalculator.calculateRisk(prompt, features, riskContext);
+        return PromptVerdict.builder()
+                .sanitizedPrompt(sanitizationService.sanitize(prompt, features))
                 .riskScore(riskAssessment.getScore())
                 .riskLevel(riskAssessment.getLevel())
-                .blocked(shouldBlock)
-                .blockReason(shouldBlock ? "High risk score: " + riskAssessment.getScore() : null)
-                .timestamp(java.time.LocalDateTime.now())
-                .metadata(metadata)
+                .riskReasons(riskAssessment.getReasons())
+                .timedOut(riskAssessment.isTimedOut())
                 .build();
-
-        return ResponseEntity.ok()
-                .headers(headers)
-                .body(secureResponse);
     }
 }
 
@@ -24,6 +24,7 @@ public enum ErrorCode {
     // Rate Limiting (RATE_*)
     RATE_LIMIT_EXCEEDED("RATE_001", "Rate limit exceeded"),
     RATE_LIMIT_CONFIG_ERROR("RATE_002", "Rate limit configuration error"),
+    RATE_SERVICE_OVERLOADED("RATE_003", "Request shed by admission control"),
     
     // Database (DB_*)
     DB_CONNECTION_ERROR("DB_001", "Database connection error"),
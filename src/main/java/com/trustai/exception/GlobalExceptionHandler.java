@@ -1,5 +1,10 @@
 package com.trustai.exception;
 
+import com.trustai.util.ClientIpResolver;
+import com.trustai.util.StructuredLogger;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.BadCredentialsException;
@@ -13,8 +18,11 @@ import java.util.HashMap;
 import java.util.Map;
 
 @RestControllerAdvice
+@RequiredArgsConstructor
 public class GlobalExceptionHandler {
 
+    private final StructuredLogger structuredLogger;
+
     @ExceptionHandler(MethodArgumentNotValidException.class)
     public ResponseEntity<ErrorResponse> handleValidationExceptions(
             MethodArgumentNotValidException ex, HttpServletRequest request) {
@@ -56,7 +64,7 @@ public class GlobalExceptionHandler {
         // Structured logging - no sensitive data
         Map<String, String> context = new HashMap<>();
         context.put("endpoint", request.getRequestURI());
-        context.put("ip", getClientIp(request));
+        context.put("ip", ClientIpResolver.resolve(request));
         
         structuredLogger.logError(
             "AUTH_ERROR",
@@ -76,6 +84,28 @@ public class GlobalExceptionHandler {
         return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(errorResponse);
     }
 
+    @ExceptionHandler(ServiceOverloadedException.class)
+    public ResponseEntity<ErrorResponse> handleServiceOverloaded(
+            ServiceOverloadedException ex, HttpServletRequest request) {
+        // Expected under load - warning only, no stack trace
+        Map<String, String> context = new HashMap<>();
+        context.put("endpoint", request.getRequestURI());
+        context.put("errorCode", ex.getErrorCode().getCode());
+
+        structuredLogger.logWarning("ADMISSION_SHED", ex.getMessage(), context);
+
+        ErrorResponse errorResponse = ErrorResponse.builder()
+                .timestamp(LocalDateTime.now())
+                .status(HttpStatus.SERVICE_UNAVAILABLE.value())
+                .error("Service Unavailable")
+                .message("Service is at capacity, please retry later")
+                .build();
+
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()))
+                .body(errorResponse);
+    }
+
     @ExceptionHandler(RuntimeException.class)
     public ResponseEntity<ErrorResponse> handleRuntimeException(
             RuntimeException ex, HttpServletRequest request) {
@@ -111,7 +141,7 @@ public class GlobalExceptionHandler {
         context.put("endpoint", request.getRequestURI());
         context.put("method", request.getMethod());
         context.put("exceptionClass", ex.getClass().getSimpleName());
-        context.put("ip", getClientIp(request));
+        context.put("ip", ClientIpResolver.resolve(request));
         
         structuredLogger.logError(
             "UNEXPECTED_ERROR",
@@ -131,20 +161,6 @@ public class GlobalExceptionHandler {
         return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(errorResponse);
     }
     
-    /**
-     * Extract client IP from request
-     */
-    private String getClientIp(HttpServletRequest request) {
-        String ip = request.getHeader("X-Forwarded-For");
-        if (ip == null || ip.isEmpty() || "unknown".equalsIgnoreCase(ip)) {
-            ip = request.getHeader("X-Real-IP");
-        }
-        if (ip == null || ip.isEmpty() || "unknown".equalsIgnoreCase(ip)) {
-            ip = request.getRemoteAddr();
-        }
-        return ip != null ? ip.split(",")[0].trim() : "unknown";
-    }
-
     @lombok.Data
     @lombok.Builder
     public static class ErrorResponse {
@@ -0,0 +1,16 @@
+package com.trustai.exception;
+
+import lombok.Getter;
+
+/**
+ * Request rejected because the service is at capacity; mapped to 503 with {@code Retry-After}
+ */
+@Getter
+public class ServiceOverloadedException extends CustomException {
+    private final long retryAfterSeconds;
+
+    public ServiceOverloadedException(String message, long retryAfterSeconds) {
+        super(ErrorCode.RATE_SERVICE_OVERLOADED, message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+}
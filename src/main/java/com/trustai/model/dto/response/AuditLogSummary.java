@@ -0,0 +1,32 @@
+package com.trustai.model.dto.response;
+
+import com.trustai.model.entity.AuditLog;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * An audit row as listed: scalar columns and the start of the prompt, without the prompt,
+ * response and metadata themselves
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AuditLogSummary {
+
+    private Long id;
+    private String userId;
+    private String endpoint;
+    private String method;
+    private Integer riskScore;
+    private AuditLog.RiskLevel riskLevel;
+    private Boolean blocked;
+    private String blockReason;
+    private String ipAddress;
+    private LocalDateTime timestamp;
+    private String promptPreview;
+}
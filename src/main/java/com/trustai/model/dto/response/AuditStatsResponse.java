@@ -0,0 +1,38 @@
+package com.trustai.model.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AuditStatsResponse {
+
+    private LocalDateTime from;
+    private LocalDateTime to;
+    private long totalRequests;
+    private long blockedRequests;
+    private double averageRiskScore;
+    private long requestsToday;
+    private List<NamedCount> riskDistribution;
+    private List<TimeBucket> requestsOverTime;
+    private List<ScoreBucket> scoreHistogram;
+
+    public record NamedCount(String name, long value) {
+    }
+
+    public record TimeBucket(LocalDateTime date, long requests, long blocked) {
+    }
+
+    /**
+     * Requests with a risk score from {@code min} to {@code max}, both inclusive
+     */
+    public record ScoreBucket(int min, int max, long count) {
+    }
+}
@@ -1,5 +1,6 @@
 package com.trustai.model.entity;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -11,22 +12,39 @@ import org.hibernate.type.SqlTypes;
 import java.time.LocalDateTime;
 import java.util.Map;
 
+/**
+ * One audited request. The table is range-partitioned by month on {@code timestamp}; it and its
+ * indexes are defined in {@code db/audit-logs-partitioning.sql}, not derived from this mapping.
+ * Queries should bound {@code timestamp} so that only the relevant partitions are scanned.
+ * <p>
+ * Rows written by the audit writer reference prompt and response in {@code audit_bodies} by
+ * hash and leave the text columns empty; {@code AuditBodyStore} fills them in for reading.
+ */
 @Entity
-@Table(name = "audit_logs", indexes = {
-    @Index(name = "idx_user_id", columnList = "userId"),
-    @Index(name = "idx_timestamp", columnList = "timestamp"),
-    @Index(name = "idx_risk_score", columnList = "riskScore")
-})
+@Table(name = "audit_logs")
 @Data
 @Builder
 @NoArgsConstructor
 @AllArgsConstructor
 public class AuditLog {
 
+    public static final int PROMPT_PREVIEW_LENGTH = 120;
+
+    /**
+     * Text search configuration of the unmapped {@code search_vector} column and of queries against it
+     */
+    public static final String SEARCH_CONFIGURATION = "english";
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
+    /**
+     * Assigned when the event is recorded; makes replays of the local audit log idempotent
+     */
+    @Column(length = 36, updatable = false)
+    private String eventId;
+
     @Column(nullable = false)
     private String userId;
 
@@ -58,6 +76,22 @@ public class AuditLog {
     @Column(columnDefinition = "TEXT")
     private String sanitizedPrompt;
 
+    /**
+     * First {@value #PROMPT_PREVIEW_LENGTH} characters of the prompt, for listings
+     */
+    @JsonIgnore
+    @Column(length = PROMPT_PREVIEW_LENGTH)
+    private String promptPreview;
+
+    @JsonIgnore
+    private byte[] promptHash;
+
+    @JsonIgnore
+    private byte[] responseHash;
+
+    @JsonIgnore
+    private byte[] sanitizedPromptHash;
+
     @Column(nullable = false)
     private String ipAddress;
 
@@ -39,6 +39,12 @@ public class User implements UserDetails {
     @Enumerated(EnumType.STRING)
     private Plan plan;
 
+    /**
+     * Organization the user belongs to, for limits shared by its members; null if none
+     */
+    @Column(length = 100)
+    private String organization;
+
     @Column(nullable = false)
     private Boolean enabled = true;
 
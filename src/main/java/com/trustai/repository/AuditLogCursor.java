@@ -0,0 +1,35 @@
+package com.trustai.repository;
+
+import com.trustai.exception.CustomException;
+import com.trustai.exception.ErrorCode;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Position in an audit log listing ordered by {@code timestamp} and {@code id}, newest first: the
+ * last row of the previous page. Opaque to clients.
+ */
+public record AuditLogCursor(LocalDateTime timestamp, long id) {
+
+    public String encode() {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((timestamp + "|" + id).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @throws CustomException when the cursor was not produced by {@link #encode()}
+     */
+    public static AuditLogCursor decode(String cursor) {
+        try {
+            String value = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = value.indexOf('|');
+            return new AuditLogCursor(LocalDateTime.parse(value.substring(0, separator)),
+                    Long.parseLong(value.substring(separator + 1)));
+        } catch (IllegalArgumentException | IndexOutOfBoundsException | DateTimeParseException e) {
+            throw new CustomException(ErrorCode.VAL_INVALID_FORMAT, "Invalid cursor");
+        }
+    }
+}
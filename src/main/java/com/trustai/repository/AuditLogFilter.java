@@ -0,0 +1,18 @@
+package com.trustai.repository;
+
+import com.trustai.model.entity.AuditLog;
+
+import java.time.LocalDateTime;
+
+/**
+ * Audit rows of one user between {@code from} and {@code to}, both inclusive; {@code riskLevel}
+ * and {@code blocked} apply when not null
+ */
+public record AuditLogFilter(
+        String userId,
+        LocalDateTime from,
+        LocalDateTime to,
+        AuditLog.RiskLevel riskLevel,
+        Boolean blocked
+) {
+}
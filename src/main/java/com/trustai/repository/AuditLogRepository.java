@@ -1,8 +1,6 @@
 package com.trustai.repository;
 
 import com.trustai.model.entity.AuditLog;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -12,16 +10,7 @@ import java.time.LocalDateTime;
 import java.util.List;
 
 @Repository
-public interface AuditLogRepository extends JpaRepository<AuditLog, Long> {
-    
-    Page<AuditLog> findByUserId(String userId, Pageable pageable);
-    
-    Page<AuditLog> findByUserIdAndTimestampBetween(
-            String userId,
-            LocalDateTime start,
-            LocalDateTime end,
-            Pageable pageable
-    );
+public interface AuditLogRepository extends JpaRepository<AuditLog, Long>, AuditLogRepositoryCustom {
     
     @Query("SELECT a FROM AuditLog a WHERE a.riskLevel = :riskLevel AND a.timestamp >= :since")
     List<AuditLog> findHighRiskLogsSince(
@@ -0,0 +1,26 @@
+package com.trustai.repository;
+
+import com.trustai.model.dto.response.AuditLogSummary;
+import com.trustai.model.entity.AuditLog;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+public interface AuditLogRepositoryCustom {
+
+    /**
+     * Summaries of up to {@code limit} rows matching the filter, newest first, starting after
+     * {@code after} (from the newest when null). Seeks through the index instead of skipping rows,
+     * so every page costs the same however deep it is. Prompt, response and metadata are not read.
+     */
+    List<AuditLogSummary> findPage(AuditLogFilter filter, AuditLogCursor after, int limit);
+
+    long count(AuditLogFilter filter);
+
+    /**
+     * Passes every row matching the filter after {@code after} to {@code chunks}, oldest first, in
+     * lists of up to {@code chunkSize} rows. Rows come from a server-side cursor and are detached
+     * after each chunk, so memory does not grow with the number of rows. Must run in a transaction.
+     */
+    void scanOldestFirst(AuditLogFilter filter, AuditLogCursor after, int chunkSize, Consumer<List<AuditLog>> chunks);
+}
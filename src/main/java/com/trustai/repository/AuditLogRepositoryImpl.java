@@ -0,0 +1,116 @@
+package com.trustai.repository;
+
+import com.trustai.model.dto.response.AuditLogSummary;
+import com.trustai.model.entity.AuditLog;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.hibernate.jpa.AvailableHints;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Listing queries built to match the composite indexes on {@code (user_id[, risk_level | blocked],
+ * timestamp DESC, id DESC)} in {@code db/audit-logs-partitioning.sql}
+ */
+class AuditLogRepositoryImpl implements AuditLogRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<AuditLogSummary> findPage(AuditLogFilter filter, AuditLogCursor after, int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<AuditLogSummary> query = cb.createQuery(AuditLogSummary.class);
+        Root<AuditLog> log = query.from(AuditLog.class);
+        List<Predicate> predicates = predicates(cb, log, filter);
+        if (after != null) {
+            Path<LocalDateTime> timestamp = log.get("timestamp");
+            Path<Long> id = log.get("id");
+            // The first condition is redundant but lets the planner use it as an index bound
+            predicates.add(cb.lessThanOrEqualTo(timestamp, after.timestamp()));
+            predicates.add(cb.or(
+                    cb.lessThan(timestamp, after.timestamp()),
+                    cb.and(cb.equal(timestamp, after.timestamp()), cb.lessThan(id, after.id()))));
+        }
+        // Rows written before prompt_preview existed still have the prompt inline
+        Expression<String> preview = cb.coalesce(log.get("promptPreview"),
+                cb.substring(log.get("prompt"), 1, AuditLog.PROMPT_PREVIEW_LENGTH));
+        query.select(cb.construct(AuditLogSummary.class,
+                        log.get("id"), log.get("userId"), log.get("endpoint"), log.get("method"),
+                        log.get("riskScore"), log.get("riskLevel"), log.get("blocked"), log.get("blockReason"),
+                        log.get("ipAddress"), log.get("timestamp"), preview))
+                .where(predicates.toArray(Predicate[]::new))
+                .orderBy(cb.desc(log.get("timestamp")), cb.desc(log.get("id")));
+        return entityManager.createQuery(query).setMaxResults(limit).getResultList();
+    }
+
+    @Override
+    public long count(AuditLogFilter filter) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Long> query = cb.createQuery(Long.class);
+        Root<AuditLog> log = query.from(AuditLog.class);
+        query.select(cb.count(log)).where(predicates(cb, log, filter).toArray(Predicate[]::new));
+        return entityManager.createQuery(query).getSingleResult();
+    }
+
+    @Override
+    public void scanOldestFirst(AuditLogFilter filter, AuditLogCursor after, int chunkSize,
+                                Consumer<List<AuditLog>> chunks) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<AuditLog> query = cb.createQuery(AuditLog.class);
+        Root<AuditLog> log = query.from(AuditLog.class);
+        List<Predicate> predicates = predicates(cb, log, filter);
+        if (after != null) {
+            Path<LocalDateTime> timestamp = log.get("timestamp");
+            Path<Long> id = log.get("id");
+            predicates.add(cb.greaterThanOrEqualTo(timestamp, after.timestamp()));
+            predicates.add(cb.or(
+                    cb.greaterThan(timestamp, after.timestamp()),
+                    cb.and(cb.equal(timestamp, after.timestamp()), cb.greaterThan(id, after.id()))));
+        }
+        query.select(log)
+                .where(predicates.toArray(Predicate[]::new))
+                .orderBy(cb.asc(log.get("timestamp")), cb.asc(log.get("id")));
+
+        // A fetch size inside a transaction makes the PostgreSQL driver use a cursor
+        try (Stream<AuditLog> rows = entityManager.createQuery(query)
+                .setHint(AvailableHints.HINT_FETCH_SIZE, chunkSize)
+                .setHint(AvailableHints.HINT_READ_ONLY, true)
+                .getResultStream()) {
+            List<AuditLog> chunk = new ArrayList<>(chunkSize);
+            Iterator<AuditLog> iterator = rows.iterator();
+            while (iterator.hasNext()) {
+                chunk.add(iterator.next());
+                if (chunk.size() == chunkSize || !iterator.hasNext()) {
+                    chunks.accept(chunk);
+                    chunk = new ArrayList<>(chunkSize);
+                    entityManager.clear();
+                }
+            }
+        }
+    }
+
+    private static List<Predicate> predicates(CriteriaBuilder cb, Root<AuditLog> log, AuditLogFilter filter) {
+        List<Predicate> predicates = new ArrayList<>();
+        predicates.add(cb.equal(log.get("userId"), filter.userId()));
+        predicates.add(cb.between(log.get("timestamp"), filter.from(), filter.to()));
+        if (filter.riskLevel() != null) {
+            predicates.add(cb.equal(log.get("riskLevel"), filter.riskLevel()));
+        }
+        if (filter.blocked() != null) {
+            predicates.add(cb.equal(log.get("blocked"), filter.blocked()));
+        }
+        return predicates;
+    }
+}
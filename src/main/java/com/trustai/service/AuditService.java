@@ -1,27 +1,33 @@
 package com.trustai.service;
 
+import com.trustai.config.AuditProperties;
 import com.trustai.model.entity.AuditLog;
 import com.trustai.model.entity.User;
-import com.trustai.repository.AuditLogRepository;
+import com.trustai.service.audit.AuditEvent;
+import com.trustai.service.audit.AuditWriter;
+import com.trustai.util.ClientIpResolver;
 import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 import java.util.Map;
+import java.util.UUID;
 
 @Service
 @Slf4j
 @RequiredArgsConstructor
 public class AuditService {
 
-    private final AuditLogRepository auditLogRepository;
+    private final AuditProperties auditProperties;
+    private final AuditWriter auditWriter;
 
-    @Async
-    @Transactional
+    /**
+     * Captures the audit event on the calling thread and hands it to the {@link AuditWriter};
+     * does not wait for the database. Nothing of {@code user} or {@code request} is kept. Prompt,
+     * sanitized prompt and response are only recorded with {@code log-sensitive-data}.
+     */
     public void logRequest(
             User user,
             String endpoint,
@@ -36,41 +42,35 @@ public class AuditService {
             HttpServletRequest request,
             Map<String, Object> metadata
     ) {
+        if (!auditProperties.isEnabled()) {
+            return;
+        }
         try {
-            AuditLog auditLog = AuditLog.builder()
+            String userAgent = request.getHeader("User-Agent");
+            boolean withBodies = auditProperties.isLogSensitiveData();
+            AuditEvent event = AuditEvent.builder()
+                    .eventId(UUID.randomUUID().toString())
                     .userId(user.getEmail())
                     .endpoint(endpoint)
                     .method(method)
-                    .prompt(prompt)
-                    .response(response)
+                    .prompt(withBodies ? prompt : null)
+                    .response(withBodies ? response : null)
                     .riskScore(riskScore)
                     .riskLevel(riskLevel)
                     .blocked(blocked)
                     .blockReason(blockReason)
-                    .sanitizedPrompt(sanitizedPrompt)
-                    .ipAddress(getClientIpAddress(request))
-                    .userAgent(request.getHeader("User-Agent"))
+                    .sanitizedPrompt(withBodies ? sanitizedPrompt : null)
+                    .ipAddress(ClientIpResolver.resolve(request))
+                    .userAgent(userAgent != null ? userAgent : "unknown")
                     .metadata(metadata)
                     .timestamp(LocalDateTime.now())
                     .build();
 
-            auditLogRepository.save(auditLog);
-            log.debug("Audit log created for user: {}", user.getEmail());
+            if (auditWriter.submit(event)) {
+                log.debug("Audit event queued for user: {}", event.userId());
+            }
         } catch (Exception e) {
             log.error("Failed to create audit log", e);
         }
     }
-
-    private String getClientIpAddress(HttpServletRequest request) {
-        String xForwardedFor = request.getHeader("X-Forwarded-For");
-        if (xForwardedFor != null && !xForwardedFor.isEmpty()) {
-            return xForwardedFor.split(",")[0].trim();
-        }
-        String xRealIp = request.getHeader("X-Real-IP");
-        if (xRealIp != null && !xRealIp.isEmpty()) {
-            return xRealIp;
-        }
-        return request.getRemoteAddr();
-    }
 }
-
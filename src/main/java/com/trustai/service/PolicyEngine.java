@@ -1,27 +1,48 @@
 package com.trustai.service;
 
+import com.trustai.config.PolicyProperties;
 import com.trustai.model.dto.request.SecurePromptRequest;
+import com.trustai.service.policy.CompiledPolicy;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
 @Service
 @Slf4j
+@RequiredArgsConstructor
 public class PolicyEngine {
 
-    @Value("${app.security.policy.default-policy:restrictive}")
-    private String defaultPolicy;
+    private final PolicyProperties policyProperties;
 
-    @Value("#{${app.security.policy.policies:{}}}")
-    private Map<String, Map<String, Object>> policies;
+    /** Compiled once at startup; never modified afterwards */
+    private Map<String, CompiledPolicy> policies = Map.of();
+
+    private CompiledPolicy defaultPolicy;
+
+    @PostConstruct
+    public void init() {
+        Map<String, CompiledPolicy> compiled = new HashMap<>();
+        policyProperties.getPolicies().forEach((name, policy) ->
+                compiled.put(name, CompiledPolicy.compile(name, policy, policyProperties.getModelDecisionCacheSize())));
+        policies = Map.copyOf(compiled);
+        defaultPolicy = policies.get(policyProperties.getDefaultPolicy());
+        if (defaultPolicy == null) {
+            log.warn("Default policy '{}' is not defined; requests without a known policy will be rejected",
+                    policyProperties.getDefaultPolicy());
+        }
+        log.info("Compiled {} polic(ies): {}", policies.size(), policies.keySet());
+    }
 
     public PolicyResult evaluate(SecurePromptRequest request) {
-        String policyName = request.getPolicy() != null ? request.getPolicy() : defaultPolicy;
-        Map<String, Object> policy = policies.getOrDefault(policyName, policies.get(defaultPolicy));
+        int promptLength = request.getPrompt().length();
+        String policyName = request.getPolicy() != null ? request.getPolicy() : policyProperties.getDefaultPolicy();
+        CompiledPolicy policy = policies.getOrDefault(policyName, defaultPolicy);
 
         if (policy == null) {
             return PolicyResult.builder()
@@ -30,43 +51,31 @@ public class PolicyEngine {
                     .build();
         }
 
-        List<String> violations = new java.util.ArrayList<>();
-
-        // Check prompt length
-        Integer maxLength = (Integer) policy.get("max-prompt-length");
-        if (maxLength != null && request.getPrompt().length() > maxLength) {
-            violations.add("Prompt length (" + request.getPrompt().length() + ") exceeds maximum (" + maxLength + ")");
+        boolean tooLong = policy.exceedsLength(promptLength);
+        boolean modelAllowed = policy.isModelAllowed(request.getModel());
+        if (!tooLong && modelAllowed) {
+            return PolicyResult.builder()
+                    .allowed(true)
+                    .violations(List.of())
+                    .policy(policyName)
+                    .build();
         }
 
-        // Check external API access
-        Boolean allowExternalApis = (Boolean) policy.get("allow-external-apis");
-        if (allowExternalApis != null && !allowExternalApis && request.getModel() != null) {
-            @SuppressWarnings("unchecked")
-            List<String> allowedDomains = (List<String>) policy.get("allowed-domains");
-            if (allowedDomains == null || allowedDomains.isEmpty() || 
-                !allowedDomains.contains("*") && !isAllowedDomain(request.getModel(), allowedDomains)) {
-                violations.add("External API access not allowed for model: " + request.getModel());
-            }
+        List<String> violations = new ArrayList<>(2);
+        if (tooLong) {
+            violations.add("Prompt length (" + promptLength + ") exceeds maximum (" + policy.getMaxPromptLength() + ")");
+        }
+        if (!modelAllowed) {
+            violations.add("External API access not allowed for model: " + request.getModel());
         }
-
-        boolean allowed = violations.isEmpty();
         return PolicyResult.builder()
-                .allowed(allowed)
+                .allowed(false)
                 .violations(violations)
-                .reason(allowed ? null : String.join("; ", violations))
+                .reason(String.join("; ", violations))
                 .policy(policyName)
                 .build();
     }
 
-    private boolean isAllowedDomain(String model, List<String> allowedDomains) {
-        if (model == null) {
-            return false;
-        }
-        return allowedDomains.stream().anyMatch(domain -> 
-            model.toLowerCase().contains(domain.toLowerCase())
-        );
-    }
-
     @lombok.Data
     @lombok.Builder
     public static class PolicyResult {
@@ -76,4 +85,3 @@ public class PolicyEngine {
         private String policy;
     }
 }
-
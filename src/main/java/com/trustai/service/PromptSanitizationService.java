@@ -1,18 +1,47 @@
 package com.trustai.service;
 
+import com.trustai.config.InjectionProperties;
+import com.trustai.exception.CustomException;
+import com.trustai.exception.ErrorCode;
+import com.trustai.service.prompt.InjectionMatcher;
+import com.trustai.service.prompt.PromptFeatures;
+import com.trustai.service.prompt.PromptSanitizer;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
 import jakarta.annotation.PostConstruct;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
 import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.HexFormat;
 import java.util.List;
-import java.util.regex.Pattern;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 @Service
 @Slf4j
+@RequiredArgsConstructor
 public class PromptSanitizationService {
 
+    private final MeterRegistry meterRegistry;
+    private final InjectionProperties injectionProperties;
+    private final ApplicationEventPublisher eventPublisher;
+
     private final List<String> defaultPatterns = List.of(
         "(?i)(ignore|forget|disregard).*(previous|above|instructions)",
         "(?i)(system|assistant).*(you are|you're|your role)",
@@ -23,67 +52,219 @@ public class PromptSanitizationService {
         "(?i)(\\$\\{|\\{\\{|\\[\\[)"
     );
 
-    private List<Pattern> compiledPatterns = new ArrayList<>();
+    private final AtomicLong versions = new AtomicLong();
+
+    /**
+     * Compiled rules in use. Requests read it once per scan and reloads replace it as a whole,
+     * so a scan never sees a partially built rule set and never compiles anything itself.
+     */
+    private volatile RuleSet ruleSet;
+
+    private volatile FileTime patternsFileModified;
 
     @PostConstruct
     public void init() {
-        compilePatterns();
+        reload();
     }
 
     public String sanitize(String prompt) {
-        if (prompt == null || prompt.isEmpty()) {
+        // Control characters, whitespace, tags and SQL keywords in one pass, see PromptSanitizer
+        return PromptSanitizer.sanitize(prompt);
+    }
+
+    /**
+     * Skips the sanitizer entirely when the extracted features show there is nothing to rewrite.
+     */
+    public String sanitize(String prompt, PromptFeatures features) {
+        if (features != null && features.isSanitizationNoop()) {
             return prompt;
         }
-
-        String sanitized = prompt;
-        
-        // Remove control characters
-        sanitized = sanitized.replaceAll("[\\x00-\\x1F\\x7F]", "");
-        
-        // Normalize whitespace
-        sanitized = sanitized.replaceAll("\\s+", " ").trim();
-        
-        // Remove potential HTML/XML tags
-        sanitized = sanitized.replaceAll("<[^>]+>", "");
-        
-        // Remove potential script tags
-        sanitized = sanitized.replaceAll("(?i)<script[^>]*>.*?</script>", "");
-        
-        // Remove potential SQL injection patterns
-        sanitized = sanitized.replaceAll("(?i)(union|select|insert|update|delete|drop|create|alter|exec|execute).*", "");
-        
-        return sanitized;
+        return sanitize(prompt);
     }
 
     public List<String> detectInjection(String prompt) {
-        List<String> detectedPatterns = new ArrayList<>();
-        
-        if (prompt == null || prompt.isEmpty()) {
-            return detectedPatterns;
+        return scanInjection(prompt).getMatched();
+    }
+
+    /**
+     * Evaluates all injection rules, also reporting rules whose regex ran out of step budget.
+     */
+    public InjectionMatcher.Scan scanInjection(String prompt) {
+        RuleSet current = ruleSet;
+        if (!injectionProperties.isEnabled() || current == null) {
+            return InjectionMatcher.Scan.builder().matched(new ArrayList<>()).timedOut(List.of()).build();
         }
 
-        if (compiledPatterns.isEmpty()) {
-            compilePatterns();
+        // Single pass over the prompt for all literal rules, see InjectionMatcher
+        return current.getMatcher().scan(prompt, current.getCostRecorder());
+    }
+
+    public RuleSet currentRuleSet() {
+        return ruleSet;
+    }
+
+    /**
+     * Compiles the patterns from the patterns file, or from configuration when there is none,
+     * and swaps them in atomically.
+     */
+    public synchronized RuleSet reload() {
+        String source = "configuration";
+        List<String> patterns = injectionProperties.getPatterns();
+        Path file = patternsFile();
+        if (file != null && Files.exists(file)) {
+            try {
+                patternsFileModified = Files.getLastModifiedTime(file);
+                patterns = readPatterns(file);
+                source = file.toString();
+            } catch (IOException e) {
+                throw new CustomException(ErrorCode.INT_CONFIGURATION_ERROR,
+                        "Cannot read injection patterns file: " + file, e);
+            }
+        }
+        if (patterns == null || patterns.isEmpty()) {
+            patterns = defaultPatterns;
+            source = "defaults";
+        }
+
+        InjectionMatcher matcher = InjectionMatcher.compile(patterns,
+                injectionProperties.getMaxStepsPerPattern(), injectionProperties.isRejectSlowPatterns());
+        List<Meter> meters = new ArrayList<>();
+        RuleSet compiled = RuleSet.builder()
+                .matcher(matcher)
+                .costRecorder(costRecorder(matcher, meters))
+                .meters(meters)
+                .version(versions.incrementAndGet())
+                .fingerprint(fingerprint(matcher.ids()))
+                .source(source)
+                .loadedAt(Instant.now())
+                .build();
+
+        RuleSet previous = ruleSet;
+        ruleSet = compiled;
+        if (previous != null) {
+            removeStaleMeters(previous, compiled);
         }
+        log.info("Loaded {} injection rule(s) from {} (version {}, {} rejected)",
+                matcher.ids().size(), source, compiled.getVersion(), matcher.rejected().size());
+        eventPublisher.publishEvent(new RulesReloadedEvent(compiled));
+        return compiled;
+    }
 
-        for (Pattern pattern : compiledPatterns) {
-            if (pattern.matcher(prompt).find()) {
-                detectedPatterns.add(pattern.pattern());
+    /**
+     * Picks up edits to the patterns file without a restart.
+     */
+    @Scheduled(fixedDelayString = "${app.security.injection.reload-interval-ms:30000}")
+    public void reloadIfPatternsFileChanged() {
+        Path file = patternsFile();
+        if (file == null || !Files.exists(file)) {
+            return;
+        }
+        try {
+            FileTime modified = Files.getLastModifiedTime(file);
+            if (!modified.equals(patternsFileModified)) {
+                reload();
             }
+        } catch (IOException | CustomException e) {
+            log.error("Failed to reload injection patterns from {}", file, e);
         }
+    }
 
-        return detectedPatterns;
+    private Path patternsFile() {
+        String file = injectionProperties.getPatternsFile();
+        return file == null || file.isBlank() ? null : Path.of(file);
     }
 
-    private void compilePatterns() {
-        compiledPatterns = new ArrayList<>();
-        for (String patternStr : defaultPatterns) {
-            try {
-                compiledPatterns.add(Pattern.compile(patternStr, Pattern.CASE_INSENSITIVE | Pattern.DOTALL));
-            } catch (Exception e) {
-                log.warn("Invalid pattern: {}", patternStr, e);
+    private static List<String> readPatterns(Path file) throws IOException {
+        List<String> patterns = new ArrayList<>();
+        for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+            String pattern = line.strip();
+            if (!pattern.isEmpty() && !pattern.startsWith("#")) {
+                patterns.add(pattern);
             }
         }
+        return patterns;
+    }
+
+    private String fingerprint(List<String> ids) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            for (String id : ids) {
+                digest.update(id.getBytes(StandardCharsets.UTF_8));
+                digest.update((byte) 0);
+            }
+            digest.update(Long.toString(injectionProperties.getMaxStepsPerPattern()).getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest.digest(), 0, 16);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    /**
+     * Per-rule timers, so expensive rules show up in the metrics. Literal rules share one pass
+     * and are reported together. Rules are tagged by their index in the rule list, as shown by
+     * {@code /actuator/injectionrules}, rather than by their pattern.
+     */
+    private InjectionMatcher.CostRecorder costRecorder(InjectionMatcher matcher, List<Meter> meters) {
+        Timer literalPass = Timer.builder("prompt.injection.rule.duration")
+                .tag("rule", "literal-pass")
+                .register(meterRegistry);
+        meters.add(literalPass);
+        List<String> ids = matcher.ids();
+        Timer[] timers = new Timer[ids.size()];
+        Counter[] timeouts = new Counter[ids.size()];
+        for (int rule = 0; rule < ids.size(); rule++) {
+            if (!matcher.isLiteralRule(rule)) {
+                timers[rule] = Timer.builder("prompt.injection.rule.duration")
+                        .tag("rule", String.valueOf(rule))
+                        .register(meterRegistry);
+                timeouts[rule] = Counter.builder("prompt.injection.rule.timeouts")
+                        .tag("rule", String.valueOf(rule))
+                        .register(meterRegistry);
+                meters.add(timers[rule]);
+                meters.add(timeouts[rule]);
+            }
+        }
+        return (rule, nanos, timedOut) -> {
+            if (rule == InjectionMatcher.LITERAL_PASS) {
+                literalPass.record(nanos, TimeUnit.NANOSECONDS);
+                return;
+            }
+            timers[rule].record(nanos, TimeUnit.NANOSECONDS);
+            if (timedOut) {
+                timeouts[rule].increment();
+            }
+        };
+    }
+
+    private void removeStaleMeters(RuleSet previous, RuleSet current) {
+        Set<Meter.Id> live = new HashSet<>();
+        current.getMeters().forEach(meter -> live.add(meter.getId()));
+        for (Meter meter : previous.getMeters()) {
+            if (!live.contains(meter.getId())) {
+                meterRegistry.remove(meter);
+            }
+        }
+    }
+
+    /**
+     * Published after every reload, so caches of earlier verdicts can be dropped
+     */
+    public record RulesReloadedEvent(RuleSet ruleSet) {
     }
-}
 
+    /**
+     * Immutable snapshot of the compiled injection rules
+     */
+    @lombok.Getter
+    @lombok.Builder
+    public static class RuleSet {
+        private InjectionMatcher matcher;
+        private InjectionMatcher.CostRecorder costRecorder;
+        private List<Meter> meters;
+        private long version;
+        /** Content hash of the rules, stable across restarts and nodes */
+        private String fingerprint;
+        private String source;
+        private Instant loadedAt;
+    }
+}
@@ -1,74 +1,101 @@
 package com.trustai.service;
 
+import com.trustai.config.RateLimitProperties;
 import com.trustai.model.entity.User;
-import io.github.bucket4j.Bandwidth;
-import io.github.bucket4j.Bucket;
-import io.github.bucket4j.Refill;
+import com.trustai.service.ratelimit.RateLimitBackend;
+import com.trustai.service.ratelimit.RateLimitRequest;
+import com.trustai.service.ratelimit.TokenBucket;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.beans.factory.annotation.Value;
-import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
 
-import java.time.Duration;
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
-
+/**
+ * Request limits per user (by plan), client IP, endpoint and organization, checked together.
+ * <p>
+ * Requests are charged in cost units that grow with prompt size, see
+ * {@link RateLimitProperties.Cost}. User buckets are keyed by user and plan, so a plan change gets
+ * a fresh bucket with the new limit on the next request. Where the buckets live depends on
+ * {@code app.security.rate-limit.mode}: in memory per instance, or shared through Redis.
+ */
 @Service
 @Slf4j
+@RequiredArgsConstructor
 public class RateLimitService {
 
-    @Value("${app.security.rate-limit.default-limit:100}")
-    private int defaultLimit;
+    private final RateLimitProperties properties;
+    private final RateLimitBackend backend;
+
+    public boolean tryConsume(User user) {
+        return tryConsumeAndReturnRemaining(user).isConsumed();
+    }
 
-    @Value("${app.security.rate-limit.default-window:60}")
-    private int defaultWindow;
+    public ConsumptionProbe tryConsumeAndReturnRemaining(User user) {
+        return tryConsume(user, null, null, 0);
+    }
 
-    @Value("#{${app.security.rate-limit.limits:{free:50,premium:500,enterprise:10000}}}")
-    private Map<String, Integer> planLimits;
+    /**
+     * Charges the request against every enabled dimension in one backend call; nothing is
+     * charged if any dimension is exhausted. {@code clientIp} and {@code endpoint} may be null to
+     * skip those dimensions.
+     */
+    public ConsumptionProbe tryConsume(User user, String clientIp, String endpoint, int promptLength) {
+        int userLimit = getLimitForPlan(user.getPlan());
+        if (!properties.isEnabled()) {
+            return new ConsumptionProbe(true, userLimit, 0);
+        }
 
-    private final Map<String, Bucket> cache = new ConcurrentHashMap<>();
+        RateLimitRequest.Builder limits = RateLimitRequest.builder()
+                .add(RateLimitRequest.Dimension.USER, bucketKey(user), userLimit);
+        if (clientIp != null && properties.getIp().isEnabled()) {
+            limits.add(RateLimitRequest.Dimension.IP, clientIp, properties.getIp().getLimit());
+        }
+        if (endpoint != null && properties.getEndpoint().isEnabled()) {
+            limits.add(RateLimitRequest.Dimension.ENDPOINT, endpoint, properties.getEndpoint().getLimit());
+        }
+        if (user.getOrganization() != null && properties.getOrganization().isEnabled()) {
+            limits.add(RateLimitRequest.Dimension.ORGANIZATION, user.getOrganization(),
+                    properties.getOrganization().getLimit());
+        }
 
-    @Cacheable(value = "rateLimitBuckets", key = "#user.email")
-    public Bucket resolveBucket(User user) {
-        return cache.computeIfAbsent(user.getEmail(), key -> {
-            int limit = getLimitForPlan(user.getPlan());
-            Bandwidth limitBandwidth = Bandwidth.classic(
-                    limit,
-                    Refill.intervally(limit, Duration.ofSeconds(defaultWindow))
-            );
-            return Bucket.builder()
-                    .addLimit(limitBandwidth)
-                    .build();
-        });
+        long result = backend.tryConsume(limits.build(), cost(promptLength));
+        return new ConsumptionProbe(TokenBucket.consumed(result), TokenBucket.remaining(result),
+                TokenBucket.nanosUntilRefill(result));
     }
 
-    public boolean tryConsume(User user) {
-        Bucket bucket = resolveBucket(user);
-        return bucket.tryConsume(1);
+    private long cost(int promptLength) {
+        RateLimitProperties.Cost cost = properties.getCost();
+        if (cost.getCharsPerUnit() <= 0) {
+            return 1;
+        }
+        return Math.min(1 + promptLength / cost.getCharsPerUnit(), Math.max(1, cost.getMaxUnits()));
     }
 
-    public ConsumptionProbe tryConsumeAndReturnRemaining(User user) {
-        Bucket bucket = resolveBucket(user);
-        boolean consumed = bucket.tryConsume(1);
-        long availableTokens = bucket.getAvailableTokens();
-        return ConsumptionProbe.builder()
-                .consumed(consumed)
-                .remaining(availableTokens)
-                .build();
+    /**
+     * User id, or email for users not yet persisted, plus the plan the bucket is sized for
+     */
+    private static String bucketKey(User user) {
+        Object id = user.getId() != null ? user.getId() : user.getEmail();
+        return id + ":" + (user.getPlan() != null ? user.getPlan().name() : "NONE");
     }
 
     private int getLimitForPlan(User.Plan plan) {
         if (plan == null) {
-            return defaultLimit;
+            return properties.getDefaultLimit();
         }
-        return planLimits.getOrDefault(plan.name().toLowerCase(), defaultLimit);
+        return properties.getLimits().getOrDefault(plan.name().toLowerCase(), properties.getDefaultLimit());
     }
 
     @lombok.Data
     @lombok.Builder
+    @lombok.AllArgsConstructor
     public static class ConsumptionProbe {
         private boolean consumed;
         private long remaining;
+        private long nanosUntilRefill;
+
+        /** Whole seconds until the limiting bucket refills, rounded up */
+        public long getSecondsUntilReset() {
+            return (nanosUntilRefill + 999_999_999L) / 1_000_000_000L;
+        }
     }
 }
-
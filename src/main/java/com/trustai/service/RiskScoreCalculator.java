@@ -1,20 +1,55 @@
 package com.trustai.service;
 
 import com.trustai.model.entity.AuditLog;
-import lombok.RequiredArgsConstructor;
+import com.trustai.service.prompt.PromptFeatureExtractor;
+import com.trustai.service.prompt.PromptFeatures;
+import com.trustai.service.risk.RiskContext;
+import com.trustai.service.risk.RiskContribution;
+import com.trustai.service.risk.RiskSignal;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
 
+/**
+ * Sums the contributions of all {@link RiskSignal} beans into a capped score.
+ * <p>
+ * Signals run cheapest first and evaluation stops once the score has reached the cap, or the
+ * critical threshold when {@code stop-at-critical} is set, because no further signal can change
+ * the outcome. With {@code parallel} enabled, signals that declare themselves expensive start on a
+ * small pool before the cheap ones run inline, and are awaited against a per-request deadline. A
+ * signal that misses it fails closed: the prompt scores at least {@code timeout-floor}, by default
+ * the HIGH threshold, and the assessment is marked as timed out so that it is not cached.
+ */
 @Service
 @Slf4j
-@RequiredArgsConstructor
 public class RiskScoreCalculator {
 
-    private final PromptSanitizationService sanitizationService;
+    private static final int MAX_SCORE = 100;
+
+    private final List<RiskSignal> signals;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, SignalMeters> signalMeters = new HashMap<>();
 
     @Value("${app.security.risk.thresholds.low:30}")
     private int lowThreshold;
@@ -25,61 +60,109 @@ public class RiskScoreCalculator {
     @Value("${app.security.risk.thresholds.high:80}")
     private int highThreshold;
 
-    public RiskAssessment calculateRisk(String prompt, Map<String, Object> context) {
-        int score = 0;
-        List<String> reasons = new java.util.ArrayList<>();
+    @Value("${app.security.risk.signals.stop-at-critical:false}")
+    private boolean stopAtCritical;
 
-        // Check for prompt injection
-        List<String> injectionPatterns = sanitizationService.detectInjection(prompt);
-        if (!injectionPatterns.isEmpty()) {
-            score += 40;
-            reasons.add("Prompt injection detected: " + injectionPatterns.size() + " pattern(s)");
-        }
+    @Value("${app.security.risk.signals.parallel:false}")
+    private boolean parallel;
 
-        // Check prompt length
-        if (prompt != null) {
-            if (prompt.length() > 10000) {
-                score += 20;
-                reasons.add("Very long prompt (>10k chars)");
-            } else if (prompt.length() > 5000) {
-                score += 10;
-                reasons.add("Long prompt (>5k chars)");
-            }
-        }
+    @Value("${app.security.risk.signals.deadline-ms:250}")
+    private long deadlineMs;
 
-        // Check for suspicious keywords
-        String lowerPrompt = prompt != null ? prompt.toLowerCase() : "";
-        if (lowerPrompt.contains("jailbreak") || lowerPrompt.contains("bypass")) {
-            score += 30;
-            reasons.add("Suspicious keywords detected");
-        }
+    @Value("${app.security.risk.signals.timeout-floor:${app.security.risk.thresholds.medium:60}}")
+    private int timeoutFloor;
+
+    @Value("${app.security.risk.signals.threads:4}")
+    private int threads;
+
+    private ExecutorService executor;
 
-        // Check for encoding attempts
-        if (prompt != null && (prompt.contains("%") || prompt.contains("\\x") || prompt.contains("\\u"))) {
-            score += 15;
-            reasons.add("Potential encoding obfuscation");
+    private String configurationFingerprint;
+
+    public RiskScoreCalculator(List<RiskSignal> signals, MeterRegistry meterRegistry) {
+        this.signals = signals.stream()
+                .sorted(Comparator.comparingInt(RiskSignal::cost).thenComparing(RiskSignal::name))
+                .toList();
+        this.meterRegistry = meterRegistry;
+    }
+
+    @PostConstruct
+    public void init() {
+        for (RiskSignal signal : signals) {
+            signalMeters.put(signal.name(), new SignalMeters(signal.name(), meterRegistry));
+        }
+        if (parallel) {
+            AtomicInteger threadIds = new AtomicInteger();
+            executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                    new ArrayBlockingQueue<>(threads * 64), runnable -> {
+                        Thread thread = new Thread(runnable, "risk-signal-" + threadIds.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    });
         }
+        configurationFingerprint = String.join(";",
+                "low=" + lowThreshold, "medium=" + mediumThreshold, "high=" + highThreshold,
+                "stop-at-critical=" + stopAtCritical, "timeout-floor=" + timeoutFloor,
+                signals.stream().map(signal -> signal.name() + "(" + signal.configuration() + ")")
+                        .collect(Collectors.joining(",")));
+        log.info("Risk signals in evaluation order: {} (parallel={})",
+                signals.stream().map(RiskSignal::name).toList(), parallel);
+    }
 
-        // Check for repeated patterns (potential token abuse)
-        if (prompt != null && hasRepeatedPatterns(prompt)) {
-            score += 25;
-            reasons.add("Repeated patterns detected (potential token abuse)");
+    @PreDestroy
+    public void shutdown() {
+        if (executor != null) {
+            executor.shutdownNow();
         }
+    }
+
+    /**
+     * Thresholds and signal settings; assessments are only comparable under the same value
+     */
+    public String configurationFingerprint() {
+        return configurationFingerprint;
+    }
+
+    public RiskAssessment calculateRisk(String prompt, Map<String, Object> context) {
+        return calculateRisk(prompt, PromptFeatureExtractor.extract(prompt), context);
+    }
+
+    public RiskAssessment calculateRisk(String prompt, PromptFeatures features, Map<String, Object> context) {
+        RiskContext riskContext = RiskContext.builder()
+                .prompt(prompt)
+                .features(features)
+                .attributes(context)
+                .build();
+        Map<RiskSignal, Future<RiskContribution>> pending = startParallelSignals(riskContext);
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(deadlineMs);
 
-        // Context-based scoring
-        if (context != null) {
-            if (context.containsKey("suspicious_ip") && (Boolean) context.get("suspicious_ip")) {
-                score += 15;
-                reasons.add("Suspicious IP address");
+        int score = 0;
+        boolean timedOut = false;
+        List<String> reasons = new ArrayList<>();
+        for (int i = 0; i < signals.size(); i++) {
+            if (isSettled(score)) {
+                skipRemaining(i, pending);
+                break;
             }
-            if (context.containsKey("high_request_rate") && (Boolean) context.get("high_request_rate")) {
-                score += 10;
-                reasons.add("High request rate");
+            RiskSignal signal = signals.get(i);
+            Future<RiskContribution> future = pending.get(signal);
+            RiskContribution contribution = future != null
+                    ? await(signal, future, deadline)
+                    : evaluate(signal, riskContext);
+            if (contribution == null) {
+                timedOut = true;
+                reasons.add("Risk signal " + signal.name() + " timed out after " + deadlineMs + " ms");
+                continue;
             }
+            score += contribution.getScore();
+            reasons.addAll(contribution.getReasons());
         }
 
-        // Cap at 100
-        score = Math.min(score, 100);
+        // Cap at 100; an unfinished signal might have found anything, so fail closed
+        score = Math.min(score, MAX_SCORE);
+        if (timedOut) {
+            score = Math.max(score, Math.min(timeoutFloor, MAX_SCORE));
+        }
 
         AuditLog.RiskLevel riskLevel = determineRiskLevel(score);
 
@@ -87,23 +170,74 @@ public class RiskScoreCalculator {
                 .score(score)
                 .level(riskLevel)
                 .reasons(reasons)
+                .timedOut(timedOut)
                 .build();
     }
 
-    private boolean hasRepeatedPatterns(String prompt) {
-        if (prompt.length() < 100) {
-            return false;
+    private boolean isSettled(int score) {
+        return score >= MAX_SCORE || (stopAtCritical && score >= highThreshold);
+    }
+
+    private Map<RiskSignal, Future<RiskContribution>> startParallelSignals(RiskContext context) {
+        if (executor == null) {
+            return Map.of();
         }
-        
-        // Check for repeated substrings
-        for (int i = 0; i < prompt.length() - 50; i++) {
-            String substring = prompt.substring(i, Math.min(i + 50, prompt.length()));
-            int count = (prompt.length() - substring.length()) / substring.length();
-            if (count > 3) {
-                return true;
+        Map<RiskSignal, Future<RiskContribution>> pending = new HashMap<>();
+        for (RiskSignal signal : signals) {
+            if (signal.parallel()) {
+                try {
+                    pending.put(signal, executor.submit(() -> evaluate(signal, context)));
+                } catch (RejectedExecutionException e) {
+                    // Pool saturated, the signal runs inline in its turn instead
+                }
             }
         }
-        return false;
+        return pending;
+    }
+
+    private RiskContribution evaluate(RiskSignal signal, RiskContext context) {
+        SignalMeters meters = signalMeters.get(signal.name());
+        long start = System.nanoTime();
+        RiskContribution contribution = signal.evaluate(context);
+        meters.duration.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        if (contribution.isHit()) {
+            meters.hits.increment();
+        }
+        return contribution;
+    }
+
+    /**
+     * @return the signal's contribution, or null when it missed the deadline
+     */
+    private RiskContribution await(RiskSignal signal, Future<RiskContribution> future, long deadline) {
+        try {
+            return future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            signalMeters.get(signal.name()).timeouts.increment();
+            log.warn("Risk signal {} did not complete within {} ms", signal.name(), deadlineMs);
+            return null;
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for risk signal " + signal.name(), e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException("Risk signal " + signal.name() + " failed", e.getCause());
+        }
+    }
+
+    private void skipRemaining(int from, Map<RiskSignal, Future<RiskContribution>> pending) {
+        for (int i = from; i < signals.size(); i++) {
+            RiskSignal signal = signals.get(i);
+            Future<RiskContribution> future = pending.get(signal);
+            if (future != null) {
+                future.cancel(true);
+            }
+            signalMeters.get(signal.name()).skipped.increment();
+        }
     }
 
     private AuditLog.RiskLevel determineRiskLevel(int score) {
@@ -118,12 +252,30 @@ public class RiskScoreCalculator {
         }
     }
 
+    /**
+     * Per-signal meters; hit rate is {@code risk.signal.hits} over the timer count
+     */
+    private static final class SignalMeters {
+        private final Timer duration;
+        private final Counter hits;
+        private final Counter skipped;
+        private final Counter timeouts;
+
+        private SignalMeters(String signal, MeterRegistry registry) {
+            this.duration = Timer.builder("risk.signal.duration").tag("signal", signal).register(registry);
+            this.hits = Counter.builder("risk.signal.hits").tag("signal", signal).register(registry);
+            this.skipped = Counter.builder("risk.signal.skipped").tag("signal", signal).register(registry);
+            this.timeouts = Counter.builder("risk.signal.timeouts").tag("signal", signal).register(registry);
+        }
+    }
+
     @lombok.Data
     @lombok.Builder
     public static class RiskAssessment {
         private int score;
         private AuditLog.RiskLevel level;
         private List<String> reasons;
+        /** Some signal missed its deadline and the score was raised to the timeout floor */
+        private boolean timedOut;
     }
 }
-
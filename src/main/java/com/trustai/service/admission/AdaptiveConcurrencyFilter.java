@@ -0,0 +1,134 @@
+package com.trustai.service.admission;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.trustai.config.AdaptiveConcurrencyProperties;
+import com.trustai.exception.GlobalExceptionHandler.ErrorResponse;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.security.SecurityProperties;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Rejects requests with 503 once an endpoint group has as many requests in flight as its
+ * {@link GradientLimit} allows, so overload turns into fast rejections instead of timeouts.
+ * <p>
+ * Runs ahead of the security chain, which already loads the user from the database. Only 2xx and
+ * 3xx responses are fed back as latency samples: rejections such as 401, 429 or a 503 shed further
+ * down, and errors, would make the endpoint look faster than it is.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+@Order(SecurityProperties.DEFAULT_FILTER_ORDER - 1)
+public class AdaptiveConcurrencyFilter extends OncePerRequestFilter {
+
+    private final AdaptiveConcurrencyProperties properties;
+    private final MeterRegistry meterRegistry;
+    private final ObjectMapper objectMapper;
+
+    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+    private final List<Group> groups = new ArrayList<>();
+
+    @PostConstruct
+    public void init() {
+        properties.getGroups().forEach((name, patterns) -> groups.add(new Group(name, patterns,
+                new GradientLimit(properties.getInitialLimit(), properties.getMinLimit(), properties.getMaxLimit(),
+                        properties.getSmoothing(), properties.getProbeInterval(), properties.getRttTolerance()),
+                meterRegistry)));
+        log.info("Adaptive concurrency limits {} for groups {}",
+                properties.isEnabled() ? "enabled" : "disabled", properties.getGroups());
+    }
+
+    @Override
+    protected boolean shouldNotFilter(@NonNull HttpServletRequest request) {
+        return !properties.isEnabled() || group(request) == null;
+    }
+
+    @Override
+    protected void doFilterInternal(
+            @NonNull HttpServletRequest request,
+            @NonNull HttpServletResponse response,
+            @NonNull FilterChain filterChain
+    ) throws ServletException, IOException {
+        Group group = group(request);
+        int inFlight = group.limit.tryAcquire();
+        if (inFlight < 0) {
+            group.rejected.increment();
+            reject(response);
+            return;
+        }
+
+        long start = System.nanoTime();
+        boolean completed = false;
+        try {
+            filterChain.doFilter(request, response);
+            completed = true;
+        } finally {
+            int status = response.getStatus();
+            boolean sample = completed && status >= 200 && status < 400;
+            long now = System.nanoTime();
+            group.limit.release(inFlight, sample ? now - start : 0, now);
+        }
+    }
+
+    private Group group(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        for (Group group : groups) {
+            for (String pattern : group.patterns) {
+                if (pathMatcher.match(pattern, path)) {
+                    return group;
+                }
+            }
+        }
+        return null;
+    }
+
+    private void reject(HttpServletResponse response) throws IOException {
+        ErrorResponse errorResponse = ErrorResponse.builder()
+                .timestamp(LocalDateTime.now())
+                .status(HttpStatus.SERVICE_UNAVAILABLE.value())
+                .error("Service Unavailable")
+                .message("Service is at capacity, please retry later")
+                .build();
+        response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(properties.getRetryAfterSeconds()));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(), errorResponse);
+    }
+
+    private static final class Group {
+        private final List<String> patterns;
+        private final GradientLimit limit;
+        private final Counter rejected;
+
+        private Group(String name, List<String> patterns, GradientLimit limit, MeterRegistry registry) {
+            this.patterns = List.copyOf(patterns);
+            this.limit = limit;
+            Gauge.builder("adaptive.concurrency.limit", limit, GradientLimit::getLimit)
+                    .tag("group", name).register(registry);
+            Gauge.builder("adaptive.concurrency.in.flight", limit, GradientLimit::getInFlight)
+                    .tag("group", name).register(registry);
+            this.rejected = Counter.builder("adaptive.concurrency.rejected").tag("group", name).register(registry);
+        }
+    }
+}
@@ -0,0 +1,259 @@
+package com.trustai.service.admission;
+
+import com.trustai.config.AdmissionProperties;
+import com.trustai.exception.ServiceOverloadedException;
+import com.trustai.model.entity.User;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayDeque;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Plan-aware admission in front of the secure-prompt pipeline.
+ * <p>
+ * Requests run under a global concurrency limit and a per-plan bulkhead, so a burst on one plan
+ * cannot take every worker. Requests that find no free slot wait in their plan's queue; freed slots
+ * go to the queues by smooth weighted round-robin, so higher plans are served more often without
+ * starving lower ones. A request is shed when it has waited longer than its plan's budget, or when
+ * the queues are full and a request of a higher plan arrives, in which case the newest waiter of the
+ * lowest plan gives up its place.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class AdmissionGate {
+
+    private static final Permit NOOP = () -> { };
+
+    private final AdmissionProperties properties;
+    private final MeterRegistry meterRegistry;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Map<User.Plan, Lane> lanes = new EnumMap<>(User.Plan.class);
+    private int active;
+    private int queued;
+
+    @PostConstruct
+    public void init() {
+        for (User.Plan plan : User.Plan.values()) {
+            AdmissionProperties.PlanLimits limits = properties.getPlans().getOrDefault(plan,
+                    new AdmissionProperties.PlanLimits(properties.getMaxConcurrent(), 0, 1));
+            lanes.put(plan, new Lane(plan, limits, meterRegistry));
+        }
+        log.info("Admission control {} (max concurrent {}, queue capacity {}, plans {})",
+                properties.isEnabled() ? "enabled" : "disabled",
+                properties.getMaxConcurrent(), properties.getQueueCapacity(), properties.getPlans());
+    }
+
+    /**
+     * Waits for a slot for a request of the given plan. The permit must be closed once the request
+     * is done.
+     *
+     * @throws ServiceOverloadedException when the request is shed
+     */
+    public Permit acquire(User.Plan plan) {
+        if (!properties.isEnabled()) {
+            return NOOP;
+        }
+        Lane lane = lanes.get(plan);
+        long start = System.nanoTime();
+        Waiter waiter;
+        lock.lock();
+        try {
+            if (lane.queue.isEmpty() && canRun(lane)) {
+                start(lane);
+                lane.waitTime.record(0, TimeUnit.NANOSECONDS);
+                return new LanePermit(lane);
+            }
+            if (queued >= properties.getQueueCapacity() && !displaceLowerThan(lane)) {
+                lane.shedQueueFull.increment();
+                throw overloaded(plan, "queue full");
+            }
+            waiter = new Waiter(lock.newCondition());
+            lane.queue.addLast(waiter);
+            queued++;
+            awaitTurn(waiter, start + TimeUnit.MILLISECONDS.toNanos(lane.limits.getMaxWaitMs()));
+            if (waiter.state == State.WAITING) {
+                lane.queue.remove(waiter);
+                queued--;
+                waiter.state = State.SHED;
+                lane.shedTimeout.increment();
+            }
+        } finally {
+            lock.unlock();
+        }
+        lane.waitTime.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        if (waiter.state == State.GRANTED) {
+            return new LanePermit(lane);
+        }
+        throw overloaded(plan, "not admitted within " + lane.limits.getMaxWaitMs() + " ms");
+    }
+
+    private void awaitTurn(Waiter waiter, long deadline) {
+        boolean interrupted = false;
+        long remaining;
+        while (waiter.state == State.WAITING && (remaining = deadline - System.nanoTime()) > 0) {
+            try {
+                waiter.turn.awaitNanos(remaining);
+            } catch (InterruptedException e) {
+                interrupted = true;
+                break;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Sheds the newest waiter of the lowest plan ranked below {@code lane}, freeing a queue place
+     */
+    private boolean displaceLowerThan(Lane lane) {
+        Lane victim = null;
+        for (Lane candidate : lanes.values()) {
+            if (!candidate.queue.isEmpty() && candidate.limits.getWeight() < lane.limits.getWeight()
+                    && (victim == null || candidate.limits.getWeight() < victim.limits.getWeight())) {
+                victim = candidate;
+            }
+        }
+        if (victim == null) {
+            return false;
+        }
+        Waiter displaced = victim.queue.removeLast();
+        queued--;
+        displaced.state = State.SHED;
+        displaced.turn.signal();
+        victim.shedDisplaced.increment();
+        return true;
+    }
+
+    private void release(Lane lane) {
+        lock.lock();
+        try {
+            active--;
+            lane.active--;
+            dispatch();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Hands free slots to waiting requests, choosing the queue by smooth weighted round-robin
+     */
+    private void dispatch() {
+        while (queued > 0 && active < properties.getMaxConcurrent()) {
+            Lane next = null;
+            int totalWeight = 0;
+            for (Lane lane : lanes.values()) {
+                if (!lane.queue.isEmpty() && lane.active < lane.limits.getMaxConcurrent()) {
+                    lane.currentWeight += lane.limits.getWeight();
+                    totalWeight += lane.limits.getWeight();
+                    if (next == null || lane.currentWeight > next.currentWeight) {
+                        next = lane;
+                    }
+                }
+            }
+            if (next == null) {
+                return; // every queued plan is at its bulkhead limit
+            }
+            next.currentWeight -= totalWeight;
+            Waiter waiter = next.queue.removeFirst();
+            queued--;
+            start(next);
+            waiter.state = State.GRANTED;
+            waiter.turn.signal();
+        }
+    }
+
+    private boolean canRun(Lane lane) {
+        return active < properties.getMaxConcurrent() && lane.active < lane.limits.getMaxConcurrent();
+    }
+
+    private void start(Lane lane) {
+        active++;
+        lane.active++;
+    }
+
+    private ServiceOverloadedException overloaded(User.Plan plan, String reason) {
+        return new ServiceOverloadedException("Request of plan " + plan + " shed: " + reason,
+                properties.getRetryAfterSeconds());
+    }
+
+    /**
+     * A slot held by one request; closing it more than once has no effect
+     */
+    public interface Permit extends AutoCloseable {
+        @Override
+        void close();
+    }
+
+    private final class LanePermit implements Permit {
+        private final Lane lane;
+        private boolean closed;
+
+        private LanePermit(Lane lane) {
+            this.lane = lane;
+        }
+
+        @Override
+        public void close() {
+            if (!closed) {
+                closed = true;
+                release(lane);
+            }
+        }
+    }
+
+    private enum State { WAITING, GRANTED, SHED }
+
+    private static final class Waiter {
+        private final Condition turn;
+        private State state = State.WAITING;
+
+        private Waiter(Condition turn) {
+            this.turn = turn;
+        }
+    }
+
+    /**
+     * Queue, counters and meters of one plan; mutable fields are guarded by the gate's lock
+     */
+    private static final class Lane {
+        private final AdmissionProperties.PlanLimits limits;
+        private final ArrayDeque<Waiter> queue = new ArrayDeque<>();
+        private int active;
+        private int currentWeight;
+        private final Timer waitTime;
+        private final Counter shedQueueFull;
+        private final Counter shedTimeout;
+        private final Counter shedDisplaced;
+
+        private Lane(User.Plan plan, AdmissionProperties.PlanLimits limits, MeterRegistry registry) {
+            this.limits = limits;
+            String tag = plan.name().toLowerCase();
+            // Read without the lock; the values are for monitoring only
+            Gauge.builder("admission.queue.depth", queue, ArrayDeque::size).tag("plan", tag).register(registry);
+            Gauge.builder("admission.active", this, lane -> lane.active).tag("plan", tag).register(registry);
+            this.waitTime = Timer.builder("admission.wait").tag("plan", tag).register(registry);
+            this.shedQueueFull = shedCounter(registry, tag, "queue_full");
+            this.shedTimeout = shedCounter(registry, tag, "timeout");
+            this.shedDisplaced = shedCounter(registry, tag, "displaced");
+        }
+
+        private static Counter shedCounter(MeterRegistry registry, String plan, String reason) {
+            return Counter.builder("admission.shed").tag("plan", plan).tag("reason", reason).register(registry);
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package com.trustai.service.admission;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Concurrency limit that follows measured latency, after the gradient algorithm of Netflix's
+ * concurrency-limits.
+ * <p>
+ * Each sample compares the current latency with a no-load baseline: while requests are as fast as
+ * the baseline, allowing for {@code rttTolerance}, the limit grows by a small queue allowance of
+ * {@code sqrt(limit)}; when they get slower, the limit shrinks in proportion, by at most half per
+ * sample, before smoothing. Samples taken while less than half of the limit was in use say nothing
+ * about capacity and are ignored, so an idle service does not inflate its limit.
+ * <p>
+ * A baseline averaged over ordinary samples would include the queueing the limit allows, and under
+ * sustained saturation it would drift up with the limit. Instead, every {@code probeInterval}
+ * samples the limit is halved until enough requests admitted under the halved limit have completed,
+ * and halved again for as long as that makes them noticeably faster, down to {@code minLimit}; the
+ * latency at which halving stops helping is the queue-free baseline. The first samples are such a
+ * probe. Admission is a CAS on the in-flight count.
+ */
+public final class GradientLimit {
+
+    private static final int MIN_PROBE_SAMPLES = 10;
+    /** A probe step whose latency is below this share of the previous step's halves the limit again */
+    private static final double PROBE_SPEEDUP = 0.9;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double smoothing;
+    private final int probeInterval;
+    private final double rttTolerance;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private volatile int limit;
+
+    /** Guarded by {@code this} */
+    private double estimatedLimit;
+    private double noLoadRtt;
+    private long samplesSinceProbe;
+    private boolean probing;
+    /** Requests admitted before this (local nano time) may have queued and do not count for the probe */
+    private long probeStartedAt;
+    private int probeSamplesNeeded;
+    private int probeSamples;
+    private double probeRttSum;
+    /** Mean latency of the previous step of the current probe, NaN on the first step */
+    private double previousProbeRtt;
+
+    public GradientLimit(int initialLimit, int minLimit, int maxLimit, double smoothing, int probeInterval,
+                         double rttTolerance) {
+        if (minLimit <= 0 || maxLimit < minLimit) {
+            throw new IllegalArgumentException("Limits must satisfy 0 < min <= max");
+        }
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.smoothing = smoothing;
+        this.probeInterval = Math.max(1, probeInterval);
+        this.rttTolerance = Math.max(1.0, rttTolerance);
+        this.estimatedLimit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+        this.previousProbeRtt = Double.NaN;
+        startProbe(Long.MIN_VALUE, (int) (estimatedLimit / 2));
+    }
+
+    /**
+     * Takes a slot if fewer than {@link #getLimit()} requests are in flight.
+     *
+     * @return the in-flight count including this request, to be passed to {@link #release}, or
+     *         -1 when the limit is reached
+     */
+    public int tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= limit) {
+                return -1;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return current + 1;
+            }
+        }
+    }
+
+    /**
+     * Frees the slot and, when {@code rttNanos} is positive, feeds the latency into the limit
+     *
+     * @param nowNanos local nano time at completion, so {@code nowNanos - rttNanos} is the admission time
+     */
+    public void release(int inFlightAtStart, long rttNanos, long nowNanos) {
+        inFlight.decrementAndGet();
+        if (rttNanos > 0) {
+            onSample(inFlightAtStart, rttNanos, nowNanos);
+        }
+    }
+
+    private synchronized void onSample(int inFlightAtStart, long rttNanos, long nowNanos) {
+        if (probing) {
+            if (nowNanos - rttNanos >= probeStartedAt) {
+                probeRttSum += rttNanos;
+                if (++probeSamples >= probeSamplesNeeded) {
+                    onProbeStep(probeRttSum / probeSamples, nowNanos);
+                }
+            }
+            return;
+        }
+        if (++samplesSinceProbe >= probeInterval) {
+            previousProbeRtt = Double.NaN;
+            startProbe(nowNanos, (int) (estimatedLimit / 2));
+            return;
+        }
+        if (inFlightAtStart < estimatedLimit / 2) {
+            return;
+        }
+        double gradient = Math.max(0.5, Math.min(1.0, rttTolerance * noLoadRtt / rttNanos));
+        double next = estimatedLimit * gradient + Math.sqrt(estimatedLimit);
+        next = estimatedLimit * (1 - smoothing) + next * smoothing;
+        estimatedLimit = Math.max(minLimit, Math.min(maxLimit, next));
+        limit = (int) estimatedLimit;
+    }
+
+    private void onProbeStep(double probeRtt, long nowNanos) {
+        int probeLimit = limit;
+        boolean fasterThanBefore = Double.isNaN(previousProbeRtt) || probeRtt < previousProbeRtt * PROBE_SPEEDUP;
+        if (fasterThanBefore && probeLimit > minLimit) {
+            previousProbeRtt = probeRtt;
+            startProbe(nowNanos, probeLimit / 2);
+            return;
+        }
+        noLoadRtt = Double.isNaN(previousProbeRtt) ? probeRtt : Math.min(probeRtt, previousProbeRtt);
+        probing = false;
+        samplesSinceProbe = 0;
+        limit = (int) estimatedLimit;
+    }
+
+    /**
+     * Lowers the limit so the queue drains; the estimate itself is kept and restored afterwards
+     */
+    private void startProbe(long nowNanos, int probeLimit) {
+        probeLimit = Math.max(minLimit, probeLimit);
+        probing = true;
+        probeStartedAt = nowNanos;
+        probeSamplesNeeded = Math.max(MIN_PROBE_SAMPLES, probeLimit);
+        probeSamples = 0;
+        probeRttSum = 0;
+        limit = probeLimit;
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+}
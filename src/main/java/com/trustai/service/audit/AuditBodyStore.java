@@ -0,0 +1,200 @@
+package com.trustai.service.audit;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.trustai.model.entity.AuditLog;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.sql.Date;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Content-addressed store of audit prompts and responses in {@code audit_bodies}.
+ * <p>
+ * Audit rows hold the SHA-256 of each body; the same text is stored once however many rows refer
+ * to it, compressed by {@link BodyCodec}. Storing a body that already exists only moves its
+ * {@code last_referenced} day forward, at most once a day, which is what retention goes by. Hashes
+ * stored recently by this instance are remembered and not sent again.
+ */
+@Component
+@RequiredArgsConstructor
+public class AuditBodyStore {
+
+    /** Rows per INSERT; five parameters each, well below the driver's limit of 32767 */
+    private static final int MAX_ROWS = 1000;
+    private static final String ROW = "(?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final MeterRegistry meterRegistry;
+
+    /** Hashes stored by this instance and the day they were stored */
+    private final Cache<ByteBuffer, LocalDate> recent = Caffeine.newBuilder()
+            .maximumSize(100_000)
+            .expireAfterWrite(Duration.ofHours(1))
+            .build();
+
+    private Counter skipped;
+    private DistributionSummary rawBytes;
+    private DistributionSummary storedBytes;
+
+    @PostConstruct
+    public void init() {
+        skipped = Counter.builder("audit.bodies.skipped")
+                .description("Bodies not sent because this instance stored them recently")
+                .register(meterRegistry);
+        rawBytes = DistributionSummary.builder("audit.bodies.bytes").tag("form", "raw").baseUnit("bytes")
+                .register(meterRegistry);
+        storedBytes = DistributionSummary.builder("audit.bodies.bytes").tag("form", "stored").baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Collects bodies of one batch of audit rows; {@link Batch#store()} must run before the rows
+     * referring to them are inserted
+     */
+    public Batch batch() {
+        return new Batch();
+    }
+
+    /**
+     * Fills in prompt, sanitized prompt and response of rows that only hold their hashes
+     */
+    public void resolve(Collection<AuditLog> logs) {
+        Set<ByteBuffer> wanted = new LinkedHashSet<>();
+        for (AuditLog log : logs) {
+            addIfUnresolved(wanted, log.getPrompt(), log.getPromptHash());
+            addIfUnresolved(wanted, log.getSanitizedPrompt(), log.getSanitizedPromptHash());
+            addIfUnresolved(wanted, log.getResponse(), log.getResponseHash());
+        }
+        if (wanted.isEmpty()) {
+            return;
+        }
+        Map<ByteBuffer, String> bodies = new HashMap<>(wanted.size() * 2);
+        List<ByteBuffer> hashes = new ArrayList<>(wanted);
+        for (int from = 0; from < hashes.size(); from += MAX_ROWS) {
+            List<ByteBuffer> chunk = hashes.subList(from, Math.min(hashes.size(), from + MAX_ROWS));
+            String sql = "SELECT hash, codec, length, content FROM audit_bodies WHERE hash IN ("
+                    + String.join(", ", Collections.nCopies(chunk.size(), "?")) + ")";
+            jdbcTemplate.query(sql, statement -> {
+                for (int i = 0; i < chunk.size(); i++) {
+                    statement.setBytes(i + 1, chunk.get(i).array());
+                }
+            }, resultSet -> {
+                byte[] raw = BodyCodec.decode(resultSet.getShort("codec"), resultSet.getBytes("content"),
+                        resultSet.getInt("length"));
+                bodies.put(ByteBuffer.wrap(resultSet.getBytes("hash")), new String(raw, StandardCharsets.UTF_8));
+            });
+        }
+        for (AuditLog log : logs) {
+            resolve(log::getPrompt, log.getPromptHash(), bodies, log::setPrompt);
+            resolve(log::getSanitizedPrompt, log.getSanitizedPromptHash(), bodies, log::setSanitizedPrompt);
+            resolve(log::getResponse, log.getResponseHash(), bodies, log::setResponse);
+        }
+    }
+
+    private static void addIfUnresolved(Set<ByteBuffer> wanted, String body, byte[] hash) {
+        if (body == null && hash != null) {
+            wanted.add(ByteBuffer.wrap(hash));
+        }
+    }
+
+    private static void resolve(Supplier<String> body, byte[] hash, Map<ByteBuffer, String> bodies,
+                                Consumer<String> setter) {
+        if (body.get() == null && hash != null) {
+            setter.accept(bodies.get(ByteBuffer.wrap(hash)));
+        }
+    }
+
+    /**
+     * Bodies of one batch, deduplicated by hash
+     */
+    public final class Batch {
+
+        private final Map<ByteBuffer, byte[]> pending = new HashMap<>();
+
+        private Batch() {
+        }
+
+        /**
+         * Adds a body to the batch and returns its hash, or null for a null body
+         */
+        public byte[] add(String body) {
+            if (body == null) {
+                return null;
+            }
+            byte[] raw = body.getBytes(StandardCharsets.UTF_8);
+            byte[] hash = BodyCodec.hash(raw);
+            pending.putIfAbsent(ByteBuffer.wrap(hash), raw);
+            return hash;
+        }
+
+        /**
+         * Stores the bodies not stored by this instance today
+         */
+        public void store() {
+            LocalDate today = LocalDate.now();
+            List<Map.Entry<ByteBuffer, byte[]>> rows = new ArrayList<>(pending.size());
+            for (Map.Entry<ByteBuffer, byte[]> entry : pending.entrySet()) {
+                if (today.equals(recent.getIfPresent(entry.getKey()))) {
+                    skipped.increment();
+                } else {
+                    rows.add(entry);
+                }
+            }
+            for (int from = 0; from < rows.size(); from += MAX_ROWS) {
+                insert(rows.subList(from, Math.min(rows.size(), from + MAX_ROWS)), today);
+            }
+            rows.forEach(row -> recent.put(row.getKey(), today));
+        }
+
+        private void insert(List<Map.Entry<ByteBuffer, byte[]>> rows, LocalDate today) {
+            jdbcTemplate.update(insertSql(rows.size()), statement -> {
+                int index = 1;
+                for (Map.Entry<ByteBuffer, byte[]> row : rows) {
+                    byte[] raw = row.getValue();
+                    BodyCodec.Encoded encoded = BodyCodec.encode(raw);
+                    rawBytes.record(raw.length);
+                    storedBytes.record(encoded.content().length);
+                    statement.setBytes(index++, row.getKey().array());
+                    statement.setShort(index++, encoded.codec());
+                    statement.setInt(index++, raw.length);
+                    statement.setBytes(index++, encoded.content());
+                    statement.setDate(index++, Date.valueOf(today));
+                }
+            });
+        }
+    }
+
+    static String insertSql(int rows) {
+        StringBuilder sql = new StringBuilder(256 + rows * (ROW.length() + 2))
+                .append("INSERT INTO audit_bodies (hash, codec, length, content, last_referenced) VALUES ");
+        for (int i = 0; i < rows; i++) {
+            if (i > 0) {
+                sql.append(", ");
+            }
+            sql.append(ROW);
+        }
+        return sql.append(" ON CONFLICT (hash) DO UPDATE SET last_referenced = EXCLUDED.last_referenced")
+                .append(" WHERE audit_bodies.last_referenced < EXCLUDED.last_referenced")
+                .toString();
+    }
+}
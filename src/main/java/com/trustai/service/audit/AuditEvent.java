@@ -0,0 +1,41 @@
+package com.trustai.service.audit;
+
+import com.trustai.model.entity.AuditLog;
+import lombok.Builder;
+
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * What is recorded about one audited request, captured on the request thread.
+ * <p>
+ * Holds plain values only, no servlet request or {@code User} entity, so it stays valid after the
+ * request has completed and can be serialized into the audit log as is. {@code userId} is the
+ * user's email, as in {@link AuditLog}.
+ */
+@Builder
+public record AuditEvent(
+        String eventId,
+        String userId,
+        String endpoint,
+        String method,
+        String prompt,
+        String response,
+        int riskScore,
+        AuditLog.RiskLevel riskLevel,
+        boolean blocked,
+        String blockReason,
+        String sanitizedPrompt,
+        String ipAddress,
+        String userAgent,
+        Map<String, Object> metadata,
+        LocalDateTime timestamp
+) {
+
+    public AuditEvent {
+        // Callers keep using their map, e.g. for the response body
+        metadata = metadata != null ? Collections.unmodifiableMap(new LinkedHashMap<>(metadata)) : null;
+    }
+}
@@ -0,0 +1,205 @@
+package com.trustai.service.audit;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.trustai.config.AuditProperties;
+import com.trustai.exception.ServiceOverloadedException;
+import com.trustai.model.entity.AuditLog;
+import com.trustai.repository.AuditLogCursor;
+import com.trustai.repository.AuditLogFilter;
+import com.trustai.repository.AuditLogRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Streams audit rows as NDJSON or CSV, oldest first, in constant memory: rows are read through a
+ * server-side cursor and written out one fetch at a time. The output is flushed after every
+ * fetch; a client that loses the connection resumes after the {@code timestamp} and {@code id} of
+ * the last complete row it received.
+ * <p>
+ * Each export keeps a database connection and a request thread for its whole duration, so at most
+ * {@code export.max-concurrent} run at once.
+ */
+@Service
+@Slf4j
+public class AuditExporter {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final String[] CSV_HEADER = {
+            "id", "timestamp", "userId", "endpoint", "method", "riskScore", "riskLevel", "blocked", "blockReason",
+            "ipAddress", "userAgent", "prompt", "sanitizedPrompt", "response", "metadata"};
+
+    private final AuditProperties properties;
+    private final AuditLogRepository repository;
+    private final AuditBodyStore bodyStore;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+    private final TransactionTemplate readOnly;
+    private final Semaphore running;
+
+    public AuditExporter(AuditProperties properties, AuditLogRepository repository, AuditBodyStore bodyStore,
+                         ObjectMapper objectMapper, MeterRegistry meterRegistry,
+                         PlatformTransactionManager transactionManager) {
+        this.properties = properties;
+        this.repository = repository;
+        this.bodyStore = bodyStore;
+        this.objectMapper = objectMapper;
+        this.meterRegistry = meterRegistry;
+        this.readOnly = new TransactionTemplate(transactionManager);
+        this.readOnly.setReadOnly(true);
+        this.running = new Semaphore(properties.getExport().getMaxConcurrent());
+    }
+
+    public enum Format {
+        NDJSON("application/x-ndjson", "ndjson"),
+        CSV("text/csv", "csv");
+
+        private final String contentType;
+        private final String extension;
+
+        Format(String contentType, String extension) {
+            this.contentType = contentType;
+            this.extension = extension;
+        }
+
+        public String contentType() {
+            return contentType;
+        }
+
+        public String extension() {
+            return extension;
+        }
+    }
+
+    /**
+     * Where the export goes; opened once the export is sure to run
+     */
+    @FunctionalInterface
+    public interface Target {
+        OutputStream open() throws IOException;
+    }
+
+    /**
+     * @throws ServiceOverloadedException when {@code max-concurrent} exports are already running,
+     *                                    before {@code target} is opened
+     */
+    public void export(AuditLogFilter filter, AuditLogCursor after, Format format, Target target) throws IOException {
+        if (!running.tryAcquire()) {
+            throw new ServiceOverloadedException("Too many audit exports running", 30);
+        }
+        try (Writer writer = new BufferedWriter(new OutputStreamWriter(target.open(), StandardCharsets.UTF_8),
+                BUFFER_SIZE)) {
+            long rows = format == Format.CSV ? writeCsv(filter, after, writer) : writeNdjson(filter, after, writer);
+            meterRegistry.counter("audit.export.rows", "format", format.extension()).increment(rows);
+            log.info("Exported {} audit row(s) of user {} as {}", rows, filter.userId(), format);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        } finally {
+            running.release();
+        }
+    }
+
+    private long writeNdjson(AuditLogFilter filter, AuditLogCursor after, Writer writer) throws IOException {
+        try (SequenceWriter sequence = objectMapper.writerFor(AuditLog.class).withRootValueSeparator("\n")
+                .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                .writeValues(writer)) {
+            long rows = scan(filter, after, chunk -> {
+                for (AuditLog log : chunk) {
+                    sequence.write(log);
+                }
+                sequence.flush();
+                writer.flush();
+            });
+            if (rows > 0) {
+                writer.write('\n');
+            }
+            return rows;
+        }
+    }
+
+    private long writeCsv(AuditLogFilter filter, AuditLogCursor after, Writer writer) throws IOException {
+        writeCsvRow(writer, CSV_HEADER);
+        return scan(filter, after, chunk -> {
+            for (AuditLog log : chunk) {
+                writeCsvRow(writer, new String[]{
+                        String.valueOf(log.getId()), String.valueOf(log.getTimestamp()), log.getUserId(),
+                        log.getEndpoint(), log.getMethod(), String.valueOf(log.getRiskScore()),
+                        String.valueOf(log.getRiskLevel()), String.valueOf(log.getBlocked()), log.getBlockReason(),
+                        log.getIpAddress(), log.getUserAgent(), log.getPrompt(), log.getSanitizedPrompt(),
+                        log.getResponse(), toJson(log)});
+            }
+            writer.flush();
+        });
+    }
+
+    private long scan(AuditLogFilter filter, AuditLogCursor after, ChunkWriter chunkWriter) {
+        int fetchSize = properties.getExport().getFetchSize();
+        long[] rows = new long[1];
+        readOnly.executeWithoutResult(status -> repository.scanOldestFirst(filter, after, fetchSize, chunk -> {
+            bodyStore.resolve(chunk);
+            try {
+                chunkWriter.write(chunk);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            rows[0] += chunk.size();
+        }));
+        return rows[0];
+    }
+
+    private String toJson(AuditLog log) throws JsonProcessingException {
+        return log.getMetadata() != null ? objectMapper.writeValueAsString(log.getMetadata()) : null;
+    }
+
+    static void writeCsvRow(Writer writer, String[] fields) throws IOException {
+        for (int i = 0; i < fields.length; i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            writeCsvField(writer, fields[i]);
+        }
+        writer.write("\r\n");
+    }
+
+    /**
+     * RFC 4180 quoting; text a spreadsheet would run as a formula is prefixed with a quote
+     */
+    static void writeCsvField(Writer writer, String value) throws IOException {
+        if (value == null || value.isEmpty()) {
+            return;
+        }
+        boolean formula = "=+-@\t\r".indexOf(value.charAt(0)) >= 0;
+        boolean quote = formula || value.indexOf(',') >= 0 || value.indexOf('"') >= 0
+                || value.indexOf('\n') >= 0 || value.indexOf('\r') >= 0;
+        if (!quote) {
+            writer.write(value);
+            return;
+        }
+        writer.write('"');
+        if (formula) {
+            writer.write('\'');
+        }
+        writer.write(value.replace("\"", "\"\""));
+        writer.write('"');
+    }
+
+    @FunctionalInterface
+    private interface ChunkWriter {
+        void write(List<AuditLog> chunk) throws IOException;
+    }
+}
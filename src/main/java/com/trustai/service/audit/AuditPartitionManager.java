@@ -0,0 +1,164 @@
+package com.trustai.service.audit;
+
+import com.trustai.config.AuditProperties;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Keeps the monthly partitions of {@code audit_logs} ahead of time and enforces
+ * {@code retention-days} by removing whole partitions, never with {@code DELETE}.
+ * <p>
+ * A partition is removed once its newest possible row is older than the retention period, so
+ * data is kept for up to a month longer than configured. The hourly rollups of removed months are
+ * deleted in both modes, so {@code /stats} never counts rows that are no longer in
+ * {@code audit_logs}. With {@code DROP}, the {@code audit_bodies} that no remaining row can refer to
+ * are deleted as well, about one day's worth per run. With {@code DETACH} they are kept, since the
+ * detached tables still refer to them; once those are archived, the operator deletes the bodies with
+ * {@code DELETE FROM audit_bodies WHERE last_referenced < <oldest month kept>}.
+ * <p>
+ * Rows outside every monthly partition, such as late replays of old events, land in
+ * {@code audit_logs_default}. With {@code DROP}, those older than the oldest month still kept are
+ * deleted from it; with {@code DETACH} they are left for the operator to archive.
+ * {@code audit.partitions.default.rows} reports how many rows it holds after each run, and a row
+ * is moved out of it when the partition for its month is created. Runs at startup and then
+ * on {@code partitions.cron}; with several instances, a transaction-level advisory lock lets one
+ * of them do the work. The table itself and the partitioning functions come from
+ * {@code db/audit-logs-partitioning.sql}. Does nothing on databases other than PostgreSQL.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class AuditPartitionManager {
+
+    private static final long LOCK_KEY = 0x4155_4449_545F_5054L; // "AUDIT_PT"
+    private static final Pattern PARTITION_NAME = Pattern.compile("audit_logs_p(\\d{6})");
+    private static final DateTimeFormatter PARTITION_MONTH = DateTimeFormatter.ofPattern("yyyyMM");
+
+    private final AuditProperties properties;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+
+    private Boolean postgres;
+    private volatile double defaultRows = Double.NaN;
+
+    @PostConstruct
+    public void registerMetrics() {
+        Gauge.builder("audit.partitions.default.rows", this, manager -> manager.defaultRows).register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "${app.security.audit.partitions.cron:0 15 3 * * *}")
+    public void maintain() {
+        if (!properties.getPartitions().isEnabled() || !isPostgres()) {
+            return;
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                Boolean locked = jdbcTemplate.queryForObject("SELECT pg_try_advisory_xact_lock(?)", Boolean.class, LOCK_KEY);
+                if (Boolean.TRUE.equals(locked)) {
+                    createAhead(LocalDate.now());
+                    removeExpired(LocalDate.now().minusDays(properties.getRetentionDays()));
+                    defaultRows = jdbcTemplate.queryForObject("SELECT count(*) FROM audit_logs_default", Long.class);
+                } else {
+                    log.debug("Audit partition maintenance already running on another instance");
+                }
+            });
+        } catch (RuntimeException e) {
+            log.error("Audit partition maintenance failed", e);
+        }
+    }
+
+    private void createAhead(LocalDate today) {
+        for (LocalDate month : monthsAhead(today, properties.getPartitions().getPremakeMonths())) {
+            Boolean created = jdbcTemplate.queryForObject("SELECT audit_logs_ensure_partition(?)", Boolean.class, month);
+            if (Boolean.TRUE.equals(created)) {
+                log.info("Created audit partition for {}", YearMonth.from(month));
+            }
+        }
+    }
+
+    private void removeExpired(LocalDate cutoff) {
+        List<String> partitions = jdbcTemplate.queryForList(
+                "SELECT c.relname FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid "
+                        + "WHERE i.inhparent = 'audit_logs'::regclass", String.class);
+        for (String partition : expired(partitions, cutoff)) {
+            if (properties.getPartitions().getRetentionAction() == AuditProperties.RetentionAction.DETACH) {
+                jdbcTemplate.execute("ALTER TABLE audit_logs DETACH PARTITION " + partition);
+                log.info("Detached audit partition {} past retention", partition);
+            } else {
+                jdbcTemplate.execute("DROP TABLE " + partition);
+                log.info("Dropped audit partition {} past retention", partition);
+            }
+        }
+        // Rows of the oldest remaining partition are no older than its month
+        LocalDate keptFrom = cutoff.withDayOfMonth(1);
+        jdbcTemplate.update("DELETE FROM audit_stats_hourly WHERE hour < ?", keptFrom.atStartOfDay());
+        if (properties.getPartitions().getRetentionAction() == AuditProperties.RetentionAction.DROP) {
+            int outside = jdbcTemplate.update("DELETE FROM audit_logs_default WHERE \"timestamp\" < ?",
+                    Timestamp.valueOf(keptFrom.atStartOfDay()));
+            if (outside > 0) {
+                log.info("Deleted {} audit row(s) past retention from audit_logs_default", outside);
+            }
+            int deleted = jdbcTemplate.update("DELETE FROM audit_bodies WHERE last_referenced < ?", keptFrom);
+            if (deleted > 0) {
+                log.info("Deleted {} audit bodies no longer referenced", deleted);
+            }
+        }
+    }
+
+    /**
+     * First days of the current month and the {@code premake} following ones
+     */
+    static List<LocalDate> monthsAhead(LocalDate today, int premake) {
+        List<LocalDate> months = new ArrayList<>(premake + 1);
+        LocalDate first = today.withDayOfMonth(1);
+        for (int i = 0; i <= premake; i++) {
+            months.add(first.plusMonths(i));
+        }
+        return months;
+    }
+
+    /**
+     * Monthly partitions whose whole range is before {@code cutoff}; other tables are ignored
+     */
+    static List<String> expired(List<String> partitions, LocalDate cutoff) {
+        List<String> expired = new ArrayList<>();
+        for (String partition : partitions) {
+            Matcher matcher = PARTITION_NAME.matcher(partition);
+            if (matcher.matches()
+                    && !YearMonth.parse(matcher.group(1), PARTITION_MONTH).plusMonths(1).atDay(1).isAfter(cutoff)) {
+                expired.add(partition);
+            }
+        }
+        return expired;
+    }
+
+    private boolean isPostgres() {
+        if (postgres == null) {
+            String product = jdbcTemplate.execute((ConnectionCallback<String>) connection ->
+                    connection.getMetaData().getDatabaseProductName());
+            postgres = "PostgreSQL".equalsIgnoreCase(product);
+        }
+        return postgres;
+    }
+}
@@ -0,0 +1,88 @@
+package com.trustai.service.audit;
+
+import com.trustai.exception.CustomException;
+import com.trustai.exception.ErrorCode;
+import com.trustai.model.dto.response.AuditLogSummary;
+import com.trustai.model.entity.AuditLog;
+import com.trustai.repository.AuditLogCursor;
+import com.trustai.repository.AuditLogFilter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Full-text search of audited prompts through the GIN index on {@code audit_logs.search_vector},
+ * which {@link JdbcAuditSink} fills as it inserts rows. Queries use web search syntax: quoted
+ * phrases, {@code or}, and {@code -} to exclude a word. Matches come newest first and are paged
+ * like {@code /api/v1/audit/logs}, so a page never has to rank every match.
+ */
+@Service
+@RequiredArgsConstructor
+public class AuditSearchService {
+
+    static final int MAX_QUERY_LENGTH = 256;
+
+    private static final RowMapper<AuditLogSummary> SUMMARY = (resultSet, rowNum) -> AuditLogSummary.builder()
+            .id(resultSet.getLong("id"))
+            .userId(resultSet.getString("user_id"))
+            .endpoint(resultSet.getString("endpoint"))
+            .method(resultSet.getString("method"))
+            .riskScore(resultSet.getInt("risk_score"))
+            .riskLevel(AuditLog.RiskLevel.valueOf(resultSet.getString("risk_level")))
+            .blocked(resultSet.getBoolean("blocked"))
+            .blockReason(resultSet.getString("block_reason"))
+            .ipAddress(resultSet.getString("ip_address"))
+            .timestamp(resultSet.getTimestamp("timestamp").toLocalDateTime())
+            .promptPreview(resultSet.getString("prompt_preview"))
+            .build();
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public List<AuditLogSummary> search(AuditLogFilter filter, String query, AuditLogCursor after, int limit) {
+        if (query == null || query.isBlank()) {
+            throw new CustomException(ErrorCode.VAL_MISSING_REQUIRED, "Search query is required");
+        }
+        if (query.length() > MAX_QUERY_LENGTH) {
+            throw new CustomException(ErrorCode.VAL_INVALID_INPUT,
+                    "Search query is longer than " + MAX_QUERY_LENGTH + " characters");
+        }
+        List<Object> args = new ArrayList<>();
+        String sql = searchSql(filter, query, after, limit, args);
+        return jdbcTemplate.query(sql, SUMMARY, args.toArray());
+    }
+
+    static String searchSql(AuditLogFilter filter, String query, AuditLogCursor after, int limit, List<Object> args) {
+        StringBuilder sql = new StringBuilder("SELECT id, user_id, endpoint, method, risk_score, risk_level, blocked, "
+                + "block_reason, ip_address, \"timestamp\", coalesce(prompt_preview, substr(prompt, 1, "
+                + AuditLog.PROMPT_PREVIEW_LENGTH + ")) AS prompt_preview FROM audit_logs "
+                + "WHERE user_id = ? AND \"timestamp\" BETWEEN ? AND ? "
+                + "AND search_vector @@ websearch_to_tsquery('" + AuditLog.SEARCH_CONFIGURATION + "', ?)");
+        args.add(filter.userId());
+        args.add(Timestamp.valueOf(filter.from()));
+        args.add(Timestamp.valueOf(filter.to()));
+        args.add(query);
+        if (filter.riskLevel() != null) {
+            sql.append(" AND risk_level = ?");
+            args.add(filter.riskLevel().name());
+        }
+        if (filter.blocked() != null) {
+            sql.append(" AND blocked = ?");
+            args.add(filter.blocked());
+        }
+        if (after != null) {
+            Timestamp timestamp = Timestamp.valueOf(after.timestamp());
+            sql.append(" AND \"timestamp\" <= ? AND (\"timestamp\" < ? OR (\"timestamp\" = ? AND id < ?))");
+            args.add(timestamp);
+            args.add(timestamp);
+            args.add(timestamp);
+            args.add(after.id());
+        }
+        args.add(limit);
+        return sql.append(" ORDER BY \"timestamp\" DESC, id DESC LIMIT ?").toString();
+    }
+}
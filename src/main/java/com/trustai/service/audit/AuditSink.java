@@ -0,0 +1,14 @@
+package com.trustai.service.audit;
+
+import java.util.List;
+
+/**
+ * Destination of audit batches assembled by {@link AuditWriter}
+ */
+public interface AuditSink {
+
+    /**
+     * Persists all events of the batch, or throws if none could be
+     */
+    void write(List<AuditEvent> batch);
+}
@@ -0,0 +1,145 @@
+package com.trustai.service.audit;
+
+import com.trustai.model.dto.response.AuditStatsResponse;
+import com.trustai.model.entity.AuditLog;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Audit statistics read from {@code audit_stats_hourly}, the rollups {@link JdbcAuditSink} keeps
+ * up to date as it inserts rows. Cost depends on the number of hours asked for, not on the number
+ * of audited requests, which is why callers limit it to {@link Granularity#maxBuckets()}. Time
+ * bounds are widened to whole hours.
+ */
+@Service
+@RequiredArgsConstructor
+public class AuditStatsService {
+
+    static final int SCORE_BUCKETS = 10;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Bucket size of {@code requestsOverTime}, with the most buckets one request may ask for
+     */
+    public enum Granularity {
+        HOUR(ChronoUnit.HOURS, 31 * 24),
+        DAY(ChronoUnit.DAYS, 366);
+
+        private final ChronoUnit unit;
+        private final int maxBuckets;
+
+        Granularity(ChronoUnit unit, int maxBuckets) {
+            this.unit = unit;
+            this.maxBuckets = maxBuckets;
+        }
+
+        public int maxBuckets() {
+            return maxBuckets;
+        }
+
+        /**
+         * Number of buckets from {@code from} to {@code to}, counting partial ones
+         */
+        public long buckets(LocalDateTime from, LocalDateTime to) {
+            LocalDateTime start = from.truncatedTo(unit);
+            long whole = unit.between(start, to);
+            return start.plus(whole, unit).isBefore(to) ? whole + 1 : whole;
+        }
+    }
+
+    public AuditStatsResponse stats(String userId, LocalDateTime from, LocalDateTime to, Granularity granularity) {
+        LocalDateTime start = from.truncatedTo(ChronoUnit.HOURS);
+        LocalDateTime end = ceilHour(to);
+        List<Rollup> rollups = jdbcTemplate.query(
+                "SELECT hour, risk_level, blocked, score_bucket, requests, risk_score_sum FROM audit_stats_hourly "
+                        + "WHERE user_id = ? AND hour >= ? AND hour < ?",
+                (resultSet, rowNum) -> new Rollup(
+                        resultSet.getTimestamp("hour").toLocalDateTime(),
+                        AuditLog.RiskLevel.valueOf(resultSet.getString("risk_level")),
+                        resultSet.getBoolean("blocked"),
+                        resultSet.getInt("score_bucket"),
+                        resultSet.getLong("requests"),
+                        resultSet.getLong("risk_score_sum")),
+                userId, Timestamp.valueOf(start), Timestamp.valueOf(end));
+        AuditStatsResponse stats = aggregate(rollups, start, end, granularity);
+        Long requestsToday = jdbcTemplate.queryForObject(
+                "SELECT coalesce(sum(requests), 0) FROM audit_stats_hourly WHERE user_id = ? AND hour >= ?",
+                Long.class, userId, Timestamp.valueOf(LocalDateTime.now().truncatedTo(ChronoUnit.DAYS)));
+        stats.setRequestsToday(requestsToday != null ? requestsToday : 0);
+        return stats;
+    }
+
+    static AuditStatsResponse aggregate(List<Rollup> rollups, LocalDateTime start, LocalDateTime end,
+                                        Granularity granularity) {
+        ChronoUnit unit = granularity.unit;
+        long total = 0;
+        long blocked = 0;
+        long scoreSum = 0;
+        Map<AuditLog.RiskLevel, Long> byLevel = new EnumMap<>(AuditLog.RiskLevel.class);
+        long[] histogram = new long[SCORE_BUCKETS];
+        Map<LocalDateTime, long[]> overTime = new TreeMap<>();
+        for (LocalDateTime bucket = start.truncatedTo(unit); bucket.isBefore(end); bucket = bucket.plus(1, unit)) {
+            overTime.put(bucket, new long[2]);
+        }
+
+        for (Rollup rollup : rollups) {
+            if (rollup.hour().isBefore(start) || !rollup.hour().isBefore(end)) {
+                continue;
+            }
+            total += rollup.requests();
+            scoreSum += rollup.riskScoreSum();
+            byLevel.merge(rollup.riskLevel(), rollup.requests(), Long::sum);
+            histogram[Math.min(Math.max(rollup.scoreBucket(), 0), SCORE_BUCKETS - 1)] += rollup.requests();
+            long[] counts = overTime.computeIfAbsent(rollup.hour().truncatedTo(unit), bucket -> new long[2]);
+            counts[0] += rollup.requests();
+            if (rollup.blocked()) {
+                blocked += rollup.requests();
+                counts[1] += rollup.requests();
+            }
+        }
+
+        List<AuditStatsResponse.NamedCount> riskDistribution = new ArrayList<>();
+        for (AuditLog.RiskLevel level : AuditLog.RiskLevel.values()) {
+            riskDistribution.add(new AuditStatsResponse.NamedCount(level.name(), byLevel.getOrDefault(level, 0L)));
+        }
+        List<AuditStatsResponse.TimeBucket> requestsOverTime = new ArrayList<>(overTime.size());
+        overTime.forEach((bucket, counts) ->
+                requestsOverTime.add(new AuditStatsResponse.TimeBucket(bucket, counts[0], counts[1])));
+        List<AuditStatsResponse.ScoreBucket> scoreHistogram = new ArrayList<>(SCORE_BUCKETS);
+        for (int i = 0; i < SCORE_BUCKETS; i++) {
+            scoreHistogram.add(new AuditStatsResponse.ScoreBucket(i * 10, i == SCORE_BUCKETS - 1 ? 100 : i * 10 + 9,
+                    histogram[i]));
+        }
+
+        return AuditStatsResponse.builder()
+                .from(start)
+                .to(end)
+                .totalRequests(total)
+                .blockedRequests(blocked)
+                .averageRiskScore(total == 0 ? 0 : Math.round(scoreSum * 10.0 / total) / 10.0)
+                .riskDistribution(riskDistribution)
+                .requestsOverTime(requestsOverTime)
+                .scoreHistogram(scoreHistogram)
+                .build();
+    }
+
+    private static LocalDateTime ceilHour(LocalDateTime time) {
+        LocalDateTime hour = time.truncatedTo(ChronoUnit.HOURS);
+        return hour.equals(time) ? hour : hour.plusHours(1);
+    }
+
+    record Rollup(LocalDateTime hour, AuditLog.RiskLevel riskLevel, boolean blocked, int scoreBucket,
+                  long requests, long riskScoreSum) {
+    }
+}
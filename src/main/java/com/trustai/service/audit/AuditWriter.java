@@ -0,0 +1,294 @@
+package com.trustai.service.audit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.trustai.config.AuditProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.RecoverableDataAccessException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Records audit events in a local {@link SegmentLog} and replays them into the database in batches
+ * on a dedicated thread.
+ * <p>
+ * Request threads only append to the memory-mapped log, so they never wait for the database. The
+ * writer reads batches of up to {@code batch-size} events, waiting at most {@code flush-interval-ms}
+ * for a batch to fill, and checkpoints after each batch the database accepted. While the database
+ * is unavailable it retries with backoff and events accumulate on disk; after a restart it resumes
+ * from the checkpoint. A batch may be written twice when the process stops between the insert and
+ * the checkpoint, which the unique event id turns into a no-op. Events are only dropped when the
+ * log has reached {@code max-segments}.
+ * <p>
+ * Only transient and connection failures are retried. A batch failing any other way is written
+ * event by event, and an event that cannot be decoded or written is moved to
+ * {@code quarantine.ndjson} in the log directory, so one bad event never holds up the rest. The
+ * writer thread keeps going after any failure, backing off between attempts. A record damaged on
+ * disk after startup cannot be read or walked past; the writer skips the rest of its segment, or of
+ * the log when it is in the last segment, and counts the events lost there as failed.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class AuditWriter {
+
+    private static final long MIN_RETRY_BACKOFF_MS = 100;
+
+    private final AuditProperties properties;
+    private final AuditSink sink;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+
+    private SegmentLog wal;
+    private Path quarantine;
+    private Thread thread;
+    private volatile boolean running;
+    private volatile long consumed;
+
+    private Counter accepted;
+    private Counter dropped;
+    private Counter written;
+    private Counter failed;
+    private Counter retries;
+    private Timer flushLatency;
+    private DistributionSummary batchSizes;
+
+    @PostConstruct
+    public void start() throws IOException {
+        if (!properties.isEnabled()) {
+            log.info("Audit logging disabled");
+            return;
+        }
+        AuditProperties.Writer settings = properties.getWriter();
+        wal = new SegmentLog(Path.of(settings.getDirectory()), settings.getSegmentSizeMb() * 1024 * 1024,
+                settings.getMaxSegments());
+        quarantine = Path.of(settings.getDirectory(), "quarantine.ndjson");
+
+        Gauge.builder("audit.wal.backlog", this, writer -> writer.wal.appended() - writer.consumed)
+                .register(meterRegistry);
+        Gauge.builder("audit.wal.segments", wal, SegmentLog::segmentCount).register(meterRegistry);
+        accepted = Counter.builder("audit.writer.events").tag("result", "accepted").register(meterRegistry);
+        dropped = Counter.builder("audit.writer.events").tag("result", "dropped").register(meterRegistry);
+        written = Counter.builder("audit.writer.events").tag("result", "written").register(meterRegistry);
+        failed = Counter.builder("audit.writer.events").tag("result", "failed").register(meterRegistry);
+        retries = Counter.builder("audit.writer.retries").register(meterRegistry);
+        flushLatency = Timer.builder("audit.writer.flush").register(meterRegistry);
+        batchSizes = DistributionSummary.builder("audit.writer.batch.size").register(meterRegistry);
+
+        long backlog = wal.appended();
+        if (backlog > 0) {
+            log.info("Replaying {} audit event(s) left from a previous run", backlog);
+        }
+        running = true;
+        thread = new Thread(this::run, "audit-writer");
+        thread.setDaemon(true);
+        thread.start();
+        log.info("Audit writer started (log {}, batch {}, flush interval {} ms)",
+                settings.getDirectory(), settings.getBatchSize(), settings.getFlushIntervalMs());
+    }
+
+    /**
+     * Writes what the database accepts within the shutdown grace period; the rest stays in the log
+     */
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        if (thread == null) {
+            return;
+        }
+        running = false;
+        thread.join(TimeUnit.SECONDS.toMillis(10));
+        wal.close();
+    }
+
+    /**
+     * Records an event for writing; returns false when it was dropped
+     */
+    public boolean submit(AuditEvent event) {
+        try {
+            if (wal.append(objectMapper.writeValueAsBytes(event))) {
+                accepted.increment();
+                return true;
+            }
+            log.error("Audit log is full ({} segments), dropped event for user {}",
+                    properties.getWriter().getMaxSegments(), event.userId());
+        } catch (IOException | UncheckedIOException e) {
+            log.error("Could not record audit event for user {}", event.userId(), e);
+        }
+        dropped.increment();
+        return false;
+    }
+
+    private void run() {
+        AuditProperties.Writer settings = properties.getWriter();
+        long flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(settings.getFlushIntervalMs());
+        long position = wal.checkpoint();
+        List<byte[]> records = new ArrayList<>(settings.getBatchSize());
+        long backoff = MIN_RETRY_BACKOFF_MS;
+        while (running || wal.appended() > consumed) {
+            try {
+                if (wal.awaitRecords(consumed, 1, System.nanoTime() + flushIntervalNanos) == 0) {
+                    continue;
+                }
+                if (running) {
+                    wal.awaitRecords(consumed, settings.getBatchSize(), System.nanoTime() + flushIntervalNanos);
+                }
+                records.clear();
+                long next = wal.read(position, settings.getBatchSize(), records);
+                if (next == position) {
+                    // Records were appended after this position, but it does not hold a readable one
+                    position = skipDamaged(position);
+                    continue;
+                }
+                if (!deliver(decode(records))) {
+                    break; // shutting down with the database unavailable
+                }
+                wal.force();
+                wal.commit(next);
+                position = next;
+                consumed += records.size();
+                backoff = MIN_RETRY_BACKOFF_MS;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (RuntimeException | IOException e) {
+                // The batch is read again from the last checkpoint; rows already inserted are skipped
+                retries.increment();
+                if (!running) {
+                    break;
+                }
+                log.error("Audit writer failed, retrying in {} ms; unwritten events stay in {}",
+                        backoff, settings.getDirectory(), e);
+                try {
+                    Thread.sleep(backoff);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+                backoff = Math.min(backoff * 2, settings.getMaxRetryBackoffMs());
+            }
+        }
+        log.info("Audit writer stopped");
+    }
+
+    private long skipDamaged(long position) throws IOException {
+        SegmentLog.Resume resume = wal.skipDamaged(position);
+        long lost = Math.max(0, resume.recordsBefore() - consumed);
+        failed.increment(lost);
+        log.error("Audit log damaged in segment {} at offset {}, skipped {} event(s) from there",
+                SegmentLog.segment(position), SegmentLog.offset(position), lost);
+        wal.commit(resume.position());
+        consumed = Math.max(consumed, resume.recordsBefore());
+        return resume.position();
+    }
+
+    private List<AuditEvent> decode(List<byte[]> records) {
+        List<AuditEvent> batch = new ArrayList<>(records.size());
+        for (byte[] record : records) {
+            try {
+                batch.add(objectMapper.readValue(record, AuditEvent.class));
+            } catch (IOException e) {
+                quarantine(record, "that cannot be decoded", e);
+            }
+        }
+        return batch;
+    }
+
+    /**
+     * Writes the batch, retrying while the database is unavailable; false if it gave up on shutdown
+     */
+    private boolean deliver(List<AuditEvent> batch) throws InterruptedException {
+        if (batch.isEmpty()) {
+            return true;
+        }
+        long backoff = MIN_RETRY_BACKOFF_MS;
+        boolean oneByOne = false;
+        while (true) {
+            long start = System.nanoTime();
+            try {
+                if (oneByOne) {
+                    deliverOneByOne(batch);
+                } else {
+                    sink.write(batch);
+                    written.increment(batch.size());
+                }
+                batchSizes.record(batch.size());
+                return true;
+            } catch (RuntimeException e) {
+                if (!isTransient(e)) {
+                    // Some event is unacceptable and retrying the batch would not help, so isolate it
+                    oneByOne = true;
+                    continue;
+                }
+                retries.increment();
+                if (!running) {
+                    return false;
+                }
+                log.warn("Audit batch of {} event(s) not written, retrying in {} ms: {}",
+                        batch.size(), backoff, e.getMessage());
+                Thread.sleep(backoff);
+                backoff = Math.min(backoff * 2, properties.getWriter().getMaxRetryBackoffMs());
+            } finally {
+                flushLatency.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            }
+        }
+    }
+
+    /**
+     * Transient failures are rethrown for the whole batch to be retried; events already written
+     * are skipped by the database on the next attempt
+     */
+    private void deliverOneByOne(List<AuditEvent> batch) {
+        for (AuditEvent event : batch) {
+            try {
+                sink.write(List.of(event));
+                written.increment();
+            } catch (RuntimeException e) {
+                if (isTransient(e)) {
+                    throw e;
+                }
+                try {
+                    quarantine(objectMapper.writeValueAsBytes(event), event.eventId() + " rejected", e);
+                } catch (IOException encoding) {
+                    failed.increment();
+                    log.error("Audit event {} rejected and could not be quarantined", event.eventId(), e);
+                }
+            }
+        }
+    }
+
+    static boolean isTransient(Throwable e) {
+        return e instanceof TransientDataAccessException
+                || e instanceof RecoverableDataAccessException
+                || e instanceof DataAccessResourceFailureException;
+    }
+
+    private void quarantine(byte[] record, String reason, Exception cause) {
+        failed.increment();
+        log.error("Audit event {}, moved to {}", reason, quarantine, cause);
+        try {
+            byte[] line = new byte[record.length + 1];
+            System.arraycopy(record, 0, line, 0, record.length);
+            line[record.length] = '\n';
+            Files.write(quarantine, line, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            log.error("Could not quarantine audit event, dropped it", e);
+        }
+    }
+}
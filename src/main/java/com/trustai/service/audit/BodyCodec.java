@@ -0,0 +1,85 @@
+package com.trustai.service.audit;
+
+import java.io.ByteArrayOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Hashing and compression of audit bodies. A body is identified by the SHA-256 of its UTF-8 bytes
+ * and stored either as is or as raw deflate at the fastest level, whichever is smaller; short
+ * bodies are not worth compressing.
+ */
+final class BodyCodec {
+
+    static final short NONE = 0;
+    static final short DEFLATE = 1;
+
+    static final int MIN_COMPRESSIBLE = 64;
+
+    private BodyCodec() {
+    }
+
+    static byte[] hash(byte[] raw) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(raw);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    static Encoded encode(byte[] raw) {
+        if (raw.length >= MIN_COMPRESSIBLE) {
+            Deflater deflater = new Deflater(Deflater.BEST_SPEED, true);
+            try {
+                deflater.setInput(raw);
+                deflater.finish();
+                // Only worth it when the output is smaller, so never let it grow past the input
+                byte[] buffer = new byte[raw.length];
+                int length = 0;
+                while (!deflater.finished() && length < buffer.length) {
+                    length += deflater.deflate(buffer, length, buffer.length - length);
+                }
+                if (deflater.finished() && length < raw.length) {
+                    return new Encoded(DEFLATE, Arrays.copyOf(buffer, length));
+                }
+            } finally {
+                deflater.end();
+            }
+        }
+        return new Encoded(NONE, raw);
+    }
+
+    static byte[] decode(short codec, byte[] content, int length) {
+        if (codec == NONE) {
+            return content;
+        }
+        if (codec != DEFLATE) {
+            throw new IllegalArgumentException("Unknown audit body codec " + codec);
+        }
+        Inflater inflater = new Inflater(true);
+        try {
+            inflater.setInput(content);
+            ByteArrayOutputStream out = new ByteArrayOutputStream(length);
+            byte[] buffer = new byte[Math.max(64, Math.min(length, 8192))];
+            while (!inflater.finished()) {
+                int read = inflater.inflate(buffer);
+                if (read == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new IllegalArgumentException("Truncated audit body");
+                }
+                out.write(buffer, 0, read);
+            }
+            return out.toByteArray();
+        } catch (DataFormatException e) {
+            throw new IllegalArgumentException("Corrupt audit body", e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    record Encoded(short codec, byte[] content) {
+    }
+}
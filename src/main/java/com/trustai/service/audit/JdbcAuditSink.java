@@ -0,0 +1,150 @@
+package com.trustai.service.audit;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.trustai.model.entity.AuditLog;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes audit batches with one multi-row INSERT per batch, one round trip and one transaction
+ * per statement instead of per event. Bypasses JPA: {@code IDENTITY} ids would force Hibernate to
+ * insert row by row. Prompts and responses go to the {@link AuditBodyStore} first; rows only
+ * reference them by hash. The same statement adds the inserted rows to {@code audit_stats_hourly}.
+ * The full-text {@code search_vector} is computed from the prompt text on the way in.
+ */
+@Component
+@RequiredArgsConstructor
+public class JdbcAuditSink implements AuditSink {
+
+    static final String COLUMNS = "event_id, user_id, endpoint, method, prompt_preview, prompt_hash, response_hash, risk_score, "
+            + "risk_level, blocked, block_reason, sanitized_prompt_hash, ip_address, user_agent, metadata, timestamp, "
+            + "search_vector";
+
+    private static final String ROW = "(?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, CAST(? AS jsonb), ?, "
+            + "to_tsvector('" + AuditLog.SEARCH_CONFIGURATION + "', ?))";
+
+    /** Bounds the work to_tsvector does per row; PostgreSQL rejects vectors over 1 MB */
+    static final int SEARCH_TEXT_LENGTH = 100_000;
+
+    /** Rows already written by an earlier attempt are skipped; a replayed event keeps its timestamp */
+    private static final String ON_CONFLICT = " ON CONFLICT (event_id, \"timestamp\") DO NOTHING";
+
+    /** Adds the rows actually inserted to the hourly rollups, so replays are not counted twice */
+    private static final String ROLLUP = " RETURNING user_id, \"timestamp\", risk_level, blocked, risk_score) "
+            + "INSERT INTO audit_stats_hourly (user_id, hour, risk_level, blocked, score_bucket, requests, risk_score_sum) "
+            + "SELECT user_id, date_trunc('hour', \"timestamp\"), risk_level, blocked, least(risk_score / 10, 9), "
+            + "count(*), sum(risk_score) FROM inserted GROUP BY 1, 2, 3, 4, 5 "
+            + "ON CONFLICT (user_id, hour, risk_level, blocked, score_bucket) DO UPDATE SET "
+            + "requests = audit_stats_hourly.requests + EXCLUDED.requests, "
+            + "risk_score_sum = audit_stats_hourly.risk_score_sum + EXCLUDED.risk_score_sum";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private final AuditBodyStore bodyStore;
+
+    @Override
+    public void write(List<AuditEvent> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        AuditBodyStore.Batch bodies = bodyStore.batch();
+        List<BodyHashes> hashes = new ArrayList<>(batch.size());
+        for (AuditEvent event : batch) {
+            hashes.add(new BodyHashes(bodies.add(event.prompt()), bodies.add(event.response()),
+                    bodies.add(event.sanitizedPrompt())));
+        }
+        bodies.store();
+        jdbcTemplate.update(insertSql(batch.size()), statement -> {
+            int index = 1;
+            for (int i = 0; i < batch.size(); i++) {
+                index = bind(statement, index, batch.get(i), hashes.get(i));
+            }
+        });
+    }
+
+    static String insertSql(int rows) {
+        StringBuilder sql = new StringBuilder(64 + COLUMNS.length() + ON_CONFLICT.length() + ROLLUP.length()
+                + rows * (ROW.length() + 2))
+                .append("WITH inserted AS (INSERT INTO audit_logs (").append(COLUMNS).append(") VALUES ");
+        for (int i = 0; i < rows; i++) {
+            if (i > 0) {
+                sql.append(", ");
+            }
+            sql.append(ROW);
+        }
+        return sql.append(ON_CONFLICT).append(ROLLUP).toString();
+    }
+
+    private int bind(PreparedStatement statement, int index, AuditEvent event, BodyHashes hashes) throws SQLException {
+        statement.setString(index++, event.eventId());
+        statement.setString(index++, event.userId());
+        statement.setString(index++, event.endpoint());
+        statement.setString(index++, event.method());
+        statement.setString(index++, preview(event.prompt()));
+        statement.setBytes(index++, hashes.prompt());
+        statement.setBytes(index++, hashes.response());
+        statement.setInt(index++, event.riskScore());
+        statement.setString(index++, event.riskLevel().name());
+        statement.setBoolean(index++, event.blocked());
+        statement.setString(index++, event.blockReason());
+        statement.setBytes(index++, hashes.sanitizedPrompt());
+        statement.setString(index++, event.ipAddress());
+        statement.setString(index++, event.userAgent());
+        String metadata = toJson(event.metadata());
+        if (metadata != null) {
+            statement.setString(index++, metadata);
+        } else {
+            statement.setNull(index++, Types.VARCHAR);
+        }
+        statement.setTimestamp(index++, Timestamp.valueOf(event.timestamp()));
+        statement.setString(index++, searchText(event.prompt(), event.sanitizedPrompt()));
+        return index;
+    }
+
+    static String preview(String prompt) {
+        return truncate(prompt, AuditLog.PROMPT_PREVIEW_LENGTH);
+    }
+
+    /**
+     * Text indexed for search: the prompt, and the sanitized prompt when it differs. Both are null
+     * unless sensitive data is logged, and so is the vector.
+     */
+    static String searchText(String prompt, String sanitizedPrompt) {
+        String text = prompt == null || sanitizedPrompt == null || prompt.equals(sanitizedPrompt)
+                ? (prompt != null ? prompt : sanitizedPrompt)
+                : prompt + "\n" + sanitizedPrompt;
+        return truncate(text, SEARCH_TEXT_LENGTH);
+    }
+
+    private static String truncate(String text, int maxCodePoints) {
+        if (text == null || text.length() <= maxCodePoints) {
+            return text;
+        }
+        int codePoints = Math.min(maxCodePoints, text.codePointCount(0, text.length()));
+        return text.substring(0, text.offsetByCodePoints(0, codePoints));
+    }
+
+    private String toJson(Map<String, Object> metadata) {
+        if (metadata == null) {
+            return null;
+        }
+        try {
+            return objectMapper.writeValueAsString(metadata);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Audit metadata is not serializable", e);
+        }
+    }
+
+    private record BodyHashes(byte[] prompt, byte[] response, byte[] sanitizedPrompt) {
+    }
+}
@@ -0,0 +1,314 @@
+package com.trustai.service.audit;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Append-only log of opaque records in fixed-size, memory-mapped segment files, read back by a
+ * single consumer that checkpoints its progress.
+ * <p>
+ * A record is {@code [length][crc32c][payload]}; the length is written last, so a record torn by a
+ * crash reads as the end of the log. Appending is a copy into the mapped tail segment, with no
+ * system call. When a record does not fit, the segment is closed with an end marker and the next
+ * one is created. Positions are the segment number in the high 32 bits and the offset in the low
+ * ones. The checkpoint is the position of the first record not yet consumed, kept in its own
+ * mapped file; segments wholly before it are deleted. Appends fail rather than exceed
+ * {@code maxSegments}, which bounds disk use.
+ * <p>
+ * Data reaches the page cache immediately and survives a process crash; {@link #force()} makes
+ * it survive a power loss as well. On open, the log is scanned from the checkpoint to find where
+ * the last complete record ends. Records damaged after that cannot be walked past, so the consumer
+ * can only {@link #skipDamaged skip} to the next segment, or in the tail segment to the write position.
+ */
+final class SegmentLog implements Closeable {
+
+    private static final int HEADER = 8;
+    private static final int END_OF_SEGMENT = -1;
+    private static final String SUFFIX = ".seg";
+    private static final long CHECKPOINT_MAGIC = 0x5A17_AD17_C0DE_F00DL;
+
+    private final Path directory;
+    private final int segmentSize;
+    private final int maxSegments;
+    private final MappedByteBuffer checkpointFile;
+
+    /** Mapped segments by number; guarded by {@code this} */
+    private final NavigableMap<Long, MappedByteBuffer> segments = new TreeMap<>();
+    /** Index of the first record of each segment, counted like {@link #appended()}; guarded by {@code this} */
+    private final NavigableMap<Long, Long> firstRecords = new TreeMap<>();
+    private MappedByteBuffer tail;
+    private long tailSegment;
+    private long appended;
+
+    private volatile long writePosition;
+    private volatile long checkpoint;
+
+    SegmentLog(Path directory, int segmentSize, int maxSegments) throws IOException {
+        if (segmentSize <= HEADER || maxSegments < 2) {
+            throw new IllegalArgumentException("Segments must hold a record and there must be at least two");
+        }
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.maxSegments = maxSegments;
+        Files.createDirectories(directory);
+        checkpointFile = map(directory.resolve("checkpoint"), 16);
+
+        List<Long> existing = listSegments();
+        long saved = checkpointFile.getLong(0);
+        boolean valid = (saved ^ CHECKPOINT_MAGIC) == checkpointFile.getLong(8) && existing.contains(segment(saved));
+        long start = valid ? saved : position(existing.isEmpty() ? 0 : existing.get(0), 0);
+        for (long number : existing) {
+            if (number < segment(start)) {
+                Files.deleteIfExists(segmentPath(number));
+            } else {
+                segments.put(number, map(segmentPath(number), segmentSize));
+            }
+        }
+        if (segments.isEmpty()) {
+            segments.put(segment(start), map(segmentPath(segment(start)), segmentSize));
+        }
+
+        // Find the end of the last complete record, counting the records without copying them
+        long[] backlog = new long[1];
+        long end = start;
+        long next;
+        long counted = 0;
+        while ((next = read(end, 1, Long.MIN_VALUE, payload -> backlog[0]++)) != end) {
+            if (backlog[0] > counted) {
+                // Records never span segments, so the one just read is in the segment it ends in
+                firstRecords.putIfAbsent(segment(next), counted);
+                counted = backlog[0];
+            }
+            end = next;
+        }
+        firstRecords.putIfAbsent(segment(end), counted);
+        checkpoint = start;
+        writePosition = end;
+        appended = backlog[0];
+        tailSegment = segment(end);
+        tail = segments.get(tailSegment);
+        saveCheckpoint(start);
+    }
+
+    /**
+     * Appends one record; false when it cannot be written without exceeding the segment limit
+     */
+    synchronized boolean append(byte[] payload) throws IOException {
+        int needed = HEADER + payload.length;
+        if (needed > segmentSize) {
+            return false;
+        }
+        int offset = offset(writePosition);
+        if (offset + needed > segmentSize) {
+            if (tailSegment + 1 - segment(checkpoint) >= maxSegments) {
+                return false;
+            }
+            if (offset + 4 <= segmentSize) {
+                tail.putInt(offset, END_OF_SEGMENT);
+            }
+            tailSegment++;
+            tail = map(segmentPath(tailSegment), segmentSize);
+            segments.put(tailSegment, tail);
+            firstRecords.put(tailSegment, appended);
+            offset = 0;
+        }
+        CRC32C crc = new CRC32C();
+        crc.update(payload);
+        tail.putInt(offset + 4, (int) crc.getValue());
+        tail.put(offset + HEADER, payload);
+        tail.putInt(offset, payload.length);
+        writePosition = position(tailSegment, offset + needed);
+        appended++;
+        notifyAll();
+        return true;
+    }
+
+    /**
+     * Reads up to {@code maxRecords} records starting at {@code from} into {@code out}.
+     *
+     * @return the position after the last record read
+     */
+    long read(long from, int maxRecords, List<byte[]> out) {
+        return read(from, maxRecords, writePosition, payload -> {
+            byte[] copy = new byte[payload.remaining()];
+            payload.get(copy);
+            out.add(copy);
+        });
+    }
+
+    /**
+     * @param limit   position to stop at, or {@link Long#MIN_VALUE} to read until the data ends
+     * @param visitor called with a view of each payload, valid only during the call
+     */
+    private long read(long from, int maxRecords, long limit, Consumer<ByteBuffer> visitor) {
+        long position = from;
+        int count = 0;
+        while (count < maxRecords && position != limit) {
+            long number = segment(position);
+            int offset = offset(position);
+            MappedByteBuffer buffer = mapped(number);
+            if (buffer == null) {
+                break;
+            }
+            int length = offset + HEADER <= segmentSize ? buffer.getInt(offset) : END_OF_SEGMENT;
+            if (length == END_OF_SEGMENT) {
+                if (mapped(number + 1) == null) {
+                    break;
+                }
+                position = position(number + 1, 0);
+                continue;
+            }
+            if (length <= 0 || offset + HEADER + length > segmentSize) {
+                break;
+            }
+            ByteBuffer payload = buffer.slice(offset + HEADER, length);
+            CRC32C crc = new CRC32C();
+            crc.update(payload);
+            if ((int) crc.getValue() != buffer.getInt(offset + 4)) {
+                break;
+            }
+            visitor.accept(payload.rewind());
+            count++;
+            position = position(number, offset + HEADER + length);
+        }
+        return position;
+    }
+
+    /**
+     * Moves past a record at {@code from} that cannot be read although later ones were appended:
+     * to the start of the next segment, or to the write position when {@code from} is in the tail
+     * segment. The records in between are lost.
+     *
+     * @return where reading continues and the number of records before that position
+     */
+    synchronized Resume skipDamaged(long from) {
+        long number = segment(from);
+        if (number < tailSegment) {
+            return new Resume(position(number + 1, 0), firstRecords.get(number + 1));
+        }
+        return new Resume(writePosition, appended);
+    }
+
+    record Resume(long position, long recordsBefore) {
+    }
+
+    /**
+     * Waits until at least {@code wanted} records beyond the first {@code consumed} ones have been
+     * appended, or until the deadline.
+     *
+     * @return the number of records available
+     */
+    synchronized long awaitRecords(long consumed, int wanted, long deadlineNanos) throws InterruptedException {
+        long remaining;
+        while (appended - consumed < wanted && (remaining = deadlineNanos - System.nanoTime()) > 0) {
+            TimeUnit.NANOSECONDS.timedWait(this, remaining);
+        }
+        return appended - consumed;
+    }
+
+    synchronized long appended() {
+        return appended;
+    }
+
+    long checkpoint() {
+        return checkpoint;
+    }
+
+    /**
+     * Records that everything before {@code position} has been consumed and deletes the segments
+     * that are no longer needed
+     */
+    void commit(long position) throws IOException {
+        saveCheckpoint(position);
+        checkpoint = position;
+        List<Long> obsolete;
+        synchronized (this) {
+            obsolete = new ArrayList<>(segments.headMap(segment(position)).keySet());
+            obsolete.forEach(segments::remove);
+            firstRecords.headMap(segment(position)).clear();
+        }
+        // The mappings go away once collected; the disk space is released then
+        for (long number : obsolete) {
+            Files.deleteIfExists(segmentPath(number));
+        }
+    }
+
+    synchronized int segmentCount() {
+        return segments.size();
+    }
+
+    /**
+     * Flushes appended records to the storage device
+     */
+    void force() {
+        MappedByteBuffer current;
+        synchronized (this) {
+            current = tail;
+        }
+        current.force();
+    }
+
+    @Override
+    public synchronized void close() {
+        tail.force();
+        checkpointFile.force();
+        segments.clear();
+    }
+
+    private void saveCheckpoint(long position) {
+        checkpointFile.putLong(8, position ^ CHECKPOINT_MAGIC);
+        checkpointFile.putLong(0, position);
+        checkpointFile.force();
+    }
+
+    private synchronized MappedByteBuffer mapped(long number) {
+        return segments.get(number);
+    }
+
+    private List<Long> listSegments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.map(path -> path.getFileName().toString())
+                    .filter(name -> name.endsWith(SUFFIX))
+                    .map(name -> Long.parseLong(name.substring(0, name.length() - SUFFIX.length())))
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    private Path segmentPath(long number) {
+        return directory.resolve(String.format("%010d%s", number, SUFFIX));
+    }
+
+    private static MappedByteBuffer map(Path path, int size) throws IOException {
+        try (FileChannel channel = FileChannel.open(path,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        }
+    }
+
+    static long position(long segment, int offset) {
+        return segment << 32 | offset;
+    }
+
+    static long segment(long position) {
+        return position >>> 32;
+    }
+
+    static int offset(long position) {
+        return (int) position;
+    }
+}
@@ -0,0 +1,37 @@
+package com.trustai.service.cache;
+
+import com.trustai.model.entity.AuditLog;
+import com.trustai.service.RiskScoreCalculator;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Sanitization and risk outcome for one prompt, as stored in the verdict cache
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PromptVerdict {
+
+    private String sanitizedPrompt;
+    private int riskScore;
+    private AuditLog.RiskLevel riskLevel;
+    private List<String> riskReasons;
+    /** Scored without a signal that missed its deadline; never cached */
+    private boolean timedOut;
+
+    public RiskScoreCalculator.RiskAssessment toRiskAssessment() {
+        return RiskScoreCalculator.RiskAssessment.builder()
+                .score(riskScore)
+                .level(riskLevel)
+                .reasons(riskReasons == null ? new ArrayList<>() : new ArrayList<>(riskReasons))
+                .timedOut(timedOut)
+                .build();
+    }
+}
@@ -0,0 +1,201 @@
+package com.trustai.service.cache;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.trustai.config.VerdictCacheProperties;
+import com.trustai.service.PromptSanitizationService;
+import com.trustai.service.RiskScoreCalculator;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Supplier;
+
+/**
+ * Two-tier cache of prompt verdicts: a bounded in-process Caffeine cache in front of Redis.
+ * <p>
+ * Keys carry the injection rule fingerprint and the risk configuration fingerprint, so a reload
+ * or a threshold change makes every earlier entry unreachable on all instances without a flush.
+ * Both tiers are keyed by the SHA-256 of these fields and the prompt, so the prompt itself is not
+ * held; the in-process tier is bounded by the approximate size of the cached verdicts. Redis
+ * failures count as misses.
+ * <p>
+ * Every local miss costs a Redis GET, and a SET when Redis misses too, even for prompts that are
+ * never seen again. With mostly unique prompts that is two round trips per request for few hits;
+ * turn {@code redis-enabled} off in that case.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class PromptVerdictCache {
+
+    private static final String REDIS_PREFIX = "verdict:";
+
+    /** Approximate bytes of a cached verdict besides its strings */
+    private static final int ENTRY_OVERHEAD = 256;
+
+    private final VerdictCacheProperties properties;
+    private final PromptSanitizationService sanitizationService;
+    private final RiskScoreCalculator riskCalculator;
+    private final RedisTemplate<String, Object> redisTemplate;
+    private final MeterRegistry meterRegistry;
+
+    private AsyncCache<String, PromptVerdict> local;
+    private Counter localHits;
+    private Counter redisHits;
+    private Counter misses;
+    private Counter redisErrors;
+
+    @PostConstruct
+    public void init() {
+        local = Caffeine.newBuilder()
+                .maximumWeight(properties.getMaxLocalMb() * 1024 * 1024)
+                .weigher((String digest, PromptVerdict verdict) -> weigh(verdict))
+                .expireAfterWrite(Duration.ofSeconds(properties.getLocalTtlSeconds()))
+                .buildAsync();
+        localHits = result("hit", "local");
+        redisHits = result("hit", "redis");
+        misses = result("miss", "none");
+        redisErrors = Counter.builder("prompt.verdict.cache.errors").tag("tier", "redis").register(meterRegistry);
+        Gauge.builder("prompt.verdict.cache.size", local, cache -> cache.synchronous().estimatedSize())
+                .tag("tier", "local")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Returns the cached verdict for the request, or computes and caches it. Concurrent identical
+     * requests on one instance compute it once: the first one publishes a pending entry and does the
+     * Redis lookup and the evaluation on its own thread, outside the map's locks, and the others
+     * wait for that entry.
+     */
+    public PromptVerdict get(String prompt, String policy, String model, Map<String, Object> context,
+                             Supplier<PromptVerdict> compute) {
+        if (!properties.isEnabled()) {
+            return compute.get();
+        }
+        PromptSanitizationService.RuleSet rules = sanitizationService.currentRuleSet();
+        Key key = new Key(prompt, policy, model,
+                rules != null ? rules.getFingerprint() : "",
+                riskCalculator.configurationFingerprint(),
+                context == null ? "" : new TreeMap<>(context).toString());
+
+        String digest = key.digest();
+
+        CompletableFuture<PromptVerdict> pending = new CompletableFuture<>();
+        CompletableFuture<PromptVerdict> existing = local.asMap().putIfAbsent(digest, pending);
+        if (existing != null) {
+            try {
+                PromptVerdict verdict = existing.join();
+                localHits.increment();
+                return verdict;
+            } catch (CompletionException e) {
+                // The request computing it failed and its entry is gone; evaluate this one by itself
+                return loadOrCompute(digest, compute);
+            }
+        }
+
+        PromptVerdict verdict;
+        try {
+            verdict = loadOrCompute(digest, compute);
+        } catch (Throwable e) {
+            // Waiters must not block on an entry that never completes; the failed entry is dropped
+            pending.completeExceptionally(e);
+            throw e;
+        }
+        pending.complete(verdict);
+        if (verdict.isTimedOut()) {
+            // Scored without every signal; the next identical request evaluates it again
+            local.asMap().remove(digest, pending);
+        }
+        return verdict;
+    }
+
+    static int weigh(PromptVerdict verdict) {
+        long chars = verdict.getSanitizedPrompt() == null ? 0 : verdict.getSanitizedPrompt().length();
+        if (verdict.getRiskReasons() != null) {
+            for (String reason : verdict.getRiskReasons()) {
+                chars += reason.length();
+            }
+        }
+        return (int) Math.min(Integer.MAX_VALUE, ENTRY_OVERHEAD + 2 * chars);
+    }
+
+    private PromptVerdict loadOrCompute(String digest, Supplier<PromptVerdict> compute) {
+        String redisKey = properties.isRedisEnabled() ? REDIS_PREFIX + digest : null;
+        if (redisKey != null) {
+            try {
+                Object cached = redisTemplate.opsForValue().get(redisKey);
+                if (cached instanceof PromptVerdict verdict) {
+                    redisHits.increment();
+                    return verdict;
+                }
+            } catch (RuntimeException e) {
+                redisErrors.increment();
+                log.debug("Verdict cache read failed, computing verdict", e);
+            }
+        }
+
+        misses.increment();
+        PromptVerdict verdict = compute.get();
+        if (redisKey != null && !verdict.isTimedOut()) {
+            try {
+                redisTemplate.opsForValue().set(redisKey, verdict, Duration.ofSeconds(properties.getRedisTtlSeconds()));
+            } catch (RuntimeException e) {
+                redisErrors.increment();
+                log.debug("Verdict cache write failed", e);
+            }
+        }
+        return verdict;
+    }
+
+    /**
+     * Entries of earlier rule sets can no longer be hit; drop them instead of waiting for expiry.
+     */
+    @EventListener
+    public void onRulesReloaded(PromptSanitizationService.RulesReloadedEvent event) {
+        if (local != null) {
+            local.synchronous().invalidateAll();
+        }
+    }
+
+    private Counter result(String result, String tier) {
+        return Counter.builder("prompt.verdict.cache.requests")
+                .tag("result", result)
+                .tag("tier", tier)
+                .register(meterRegistry);
+    }
+
+    private record Key(String prompt, String policy, String model, String rules, String risk, String context) {
+
+        String digest() {
+            try {
+                MessageDigest digest = MessageDigest.getInstance("SHA-256");
+                for (String field : new String[] {rules, risk, policy, model, context, prompt}) {
+                    byte[] bytes = field == null ? new byte[0] : field.getBytes(StandardCharsets.UTF_8);
+                    // Length prefix keeps field boundaries unambiguous
+                    digest.update(Integer.toString(field == null ? -1 : bytes.length).getBytes(StandardCharsets.US_ASCII));
+                    digest.update((byte) ':');
+                    digest.update(bytes);
+                }
+                return HexFormat.of().formatHex(digest.digest());
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException("SHA-256 not available", e);
+            }
+        }
+    }
+}
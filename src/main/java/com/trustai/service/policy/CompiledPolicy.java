@@ -0,0 +1,91 @@
+package com.trustai.service.policy;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.trustai.config.PolicyProperties;
+import com.trustai.service.prompt.LiteralAutomaton;
+
+import java.util.List;
+
+/**
+ * Immutable, validated form of one configured policy.
+ * <p>
+ * Allowed domains are compiled into a single case-folding automaton, so a model name is checked
+ * against all of them in one pass, and the outcome is memoized per model name. The memo is
+ * bounded because model names come from clients.
+ */
+public final class CompiledPolicy {
+
+    private static final int NO_LIMIT = -1;
+
+    private final String name;
+    private final int maxPromptLength;
+    private final boolean restrictsModels;
+    private final boolean anyModel;
+    private final LiteralAutomaton domains;
+    private final Cache<String, Boolean> modelDecisions;
+
+    private CompiledPolicy(String name, int maxPromptLength, boolean restrictsModels, boolean anyModel,
+                           LiteralAutomaton domains, long decisionCacheSize) {
+        this.name = name;
+        this.maxPromptLength = maxPromptLength;
+        this.restrictsModels = restrictsModels;
+        this.anyModel = anyModel;
+        this.domains = domains;
+        this.modelDecisions = Caffeine.newBuilder().maximumSize(decisionCacheSize).build();
+    }
+
+    public static CompiledPolicy compile(String name, PolicyProperties.Policy policy, long decisionCacheSize) {
+        if (policy.getMaxPromptLength() != null && policy.getMaxPromptLength() < 0) {
+            throw new IllegalArgumentException("Policy " + name + ": max-prompt-length must not be negative");
+        }
+        List<String> allowed = policy.getAllowedDomains() == null ? List.of() : policy.getAllowedDomains();
+        // An empty entry is contained in every model name, just like "*"
+        boolean anyModel = allowed.contains("*") || allowed.contains("");
+        LiteralAutomaton domains = allowed.isEmpty() || anyModel ? null : LiteralAutomaton.build(allowed);
+        return new CompiledPolicy(name,
+                policy.getMaxPromptLength() != null ? policy.getMaxPromptLength() : NO_LIMIT,
+                Boolean.FALSE.equals(policy.getAllowExternalApis()),
+                anyModel,
+                domains,
+                decisionCacheSize);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public boolean exceedsLength(int promptLength) {
+        return maxPromptLength != NO_LIMIT && promptLength > maxPromptLength;
+    }
+
+    public int getMaxPromptLength() {
+        return maxPromptLength;
+    }
+
+    public boolean isModelAllowed(String model) {
+        if (!restrictsModels || model == null || anyModel) {
+            return true;
+        }
+        if (domains == null) {
+            return false;
+        }
+        Boolean allowed = modelDecisions.getIfPresent(model);
+        if (allowed == null) {
+            allowed = containsDomain(model);
+            modelDecisions.put(model, allowed);
+        }
+        return allowed;
+    }
+
+    private boolean containsDomain(String model) {
+        int state = 0;
+        for (int i = 0; i < model.length(); i++) {
+            state = domains.step(state, model.charAt(i));
+            if (domains.outputs(state).length > 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,550 @@
+package com.trustai.service.prompt;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.nio.CharBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * Immutable, compiled set of injection rules that finds every matching rule in a single pass.
+ * <p>
+ * Rules shaped like {@code (a|b).*(c|d)} - literal alternations joined by {@code .*} - are lowered
+ * to stages over one shared {@link LiteralAutomaton}, so the prompt is scanned once no matter how
+ * many such rules there are. Since rules are compiled with {@code DOTALL}, a rule matches exactly
+ * when an occurrence of each stage starts at or after the end of the previous one, which is tracked
+ * incrementally while the automaton runs. Any other rule falls back to {@link Pattern#matcher}.
+ * Results list rule ids (the pattern source) in configuration order, like the per-pattern loop did.
+ * <p>
+ * Fallback regexes may backtrack, so each one runs against a {@link BudgetedCharSequence} that
+ * aborts it after a fixed number of character reads; the rule is then reported as timed out
+ * rather than matched. At compile time every fallback is probed with adversarial inputs of maximum
+ * prompt size, and rules that exhaust the budget are rejected or flagged. The probes run on a
+ * thread with a smaller stack than request threads; a rule whose recursion overflows it is always
+ * rejected, so matching never has to recover from a {@link StackOverflowError}.
+ */
+@Slf4j
+public final class InjectionMatcher {
+
+    static final int FLAGS = Pattern.CASE_INSENSITIVE | Pattern.DOTALL;
+
+    /** Rule index passed to a {@link CostRecorder} for the shared literal pass. */
+    public static final int LITERAL_PASS = -1;
+
+    public static final long DEFAULT_MAX_STEPS = 1_000_000L;
+
+    private static final int PROBE_LENGTH = 16_000;
+
+    /** Well below the usual 1 MB of a request thread */
+    private static final long PROBE_STACK_SIZE = 256 * 1024;
+
+    private enum ProbeResult {
+        WITHIN_BUDGET, OVER_BUDGET, STACK_OVERFLOW
+    }
+
+    private final List<String> ids;
+    private final LiteralAutomaton automaton;
+    /** Per literal id: the (rule, stage) pairs the literal belongs to. */
+    private final int[][] literalRules;
+    private final int[][] literalStages;
+    /** Per rule: stage count for literal rules, 0 for regex rules. */
+    private final int[] stageCounts;
+    private final Pattern[] fallbacks;
+    private final int literalRuleCount;
+    private final long maxSteps;
+    private final List<String> rejected;
+    private final List<String> slow;
+
+    private InjectionMatcher(List<String> ids, LiteralAutomaton automaton, int[][] literalRules,
+                             int[][] literalStages, int[] stageCounts, Pattern[] fallbacks,
+                             long maxSteps, List<String> rejected, List<String> slow) {
+        this.ids = ids;
+        this.automaton = automaton;
+        this.literalRules = literalRules;
+        this.literalStages = literalStages;
+        this.stageCounts = stageCounts;
+        this.fallbacks = fallbacks;
+        this.maxSteps = maxSteps;
+        this.rejected = rejected;
+        this.slow = slow;
+        int count = 0;
+        for (int stages : stageCounts) {
+            if (stages > 0) {
+                count++;
+            }
+        }
+        this.literalRuleCount = count;
+    }
+
+    /**
+     * Compiles the given patterns with the default step budget, rejecting slow ones.
+     */
+    public static InjectionMatcher compile(List<String> patterns) {
+        return compile(patterns, DEFAULT_MAX_STEPS, true);
+    }
+
+    /**
+     * Compiles the given patterns. Invalid patterns are logged and skipped; regex fallbacks that
+     * exceed {@code maxSteps} on a probe input are skipped when {@code rejectSlow} is set and
+     * otherwise kept and listed by {@link #slow()}.
+     */
+    public static InjectionMatcher compile(List<String> patterns, long maxSteps, boolean rejectSlow) {
+        List<String> ids = new ArrayList<>();
+        List<List<List<String>>> stagesPerRule = new ArrayList<>();
+        List<Pattern> fallbacks = new ArrayList<>();
+        List<String> rejected = new ArrayList<>();
+        List<String> slow = new ArrayList<>();
+        for (String patternStr : patterns) {
+            Pattern pattern;
+            try {
+                pattern = Pattern.compile(patternStr, FLAGS);
+            } catch (PatternSyntaxException e) {
+                log.warn("Invalid pattern: {}", patternStr, e);
+                rejected.add(patternStr);
+                continue;
+            }
+            List<List<String>> stages = LiteralRuleParser.parse(patternStr);
+            ProbeResult probe = stages == null ? probe(pattern, maxSteps) : ProbeResult.WITHIN_BUDGET;
+            if (probe == ProbeResult.STACK_OVERFLOW) {
+                log.warn("Rejected injection pattern overflowing the stack on a probe input: {}", patternStr);
+                rejected.add(patternStr);
+                continue;
+            }
+            if (probe == ProbeResult.OVER_BUDGET) {
+                if (rejectSlow) {
+                    log.warn("Rejected injection pattern exceeding {} steps on a probe input: {}", maxSteps, patternStr);
+                    rejected.add(patternStr);
+                    continue;
+                }
+                log.warn("Injection pattern exceeds {} steps on a probe input: {}", maxSteps, patternStr);
+                slow.add(patternStr);
+            }
+            ids.add(patternStr);
+            stagesPerRule.add(stages);
+            fallbacks.add(stages == null ? pattern : null);
+        }
+
+        List<String> literals = new ArrayList<>();
+        for (List<List<String>> stages : stagesPerRule) {
+            if (stages != null) {
+                stages.forEach(literals::addAll);
+            }
+        }
+        LiteralAutomaton automaton = LiteralAutomaton.build(literals);
+
+        int literalCount = automaton.literalCount();
+        List<List<int[]>> refs = new ArrayList<>(literalCount);
+        for (int i = 0; i < literalCount; i++) {
+            refs.add(new ArrayList<>());
+        }
+        int[] stageCounts = new int[ids.size()];
+        for (int rule = 0; rule < ids.size(); rule++) {
+            List<List<String>> stages = stagesPerRule.get(rule);
+            if (stages == null) {
+                continue;
+            }
+            stageCounts[rule] = stages.size();
+            for (int stage = 0; stage < stages.size(); stage++) {
+                for (String literal : stages.get(stage)) {
+                    int id = automaton.idOf(literal);
+                    List<int[]> literalRefs = refs.get(id);
+                    boolean known = false;
+                    for (int[] ref : literalRefs) {
+                        known |= ref[0] == rule && ref[1] == stage;
+                    }
+                    if (!known) {
+                        literalRefs.add(new int[]{rule, stage});
+                    }
+                }
+            }
+        }
+        int[][] literalRules = new int[literalCount][];
+        int[][] literalStages = new int[literalCount][];
+        for (int i = 0; i < literalCount; i++) {
+            List<int[]> literalRefs = refs.get(i);
+            literalRules[i] = new int[literalRefs.size()];
+            literalStages[i] = new int[literalRefs.size()];
+            for (int j = 0; j < literalRefs.size(); j++) {
+                literalRules[i][j] = literalRefs.get(j)[0];
+                literalStages[i][j] = literalRefs.get(j)[1];
+            }
+        }
+
+        InjectionMatcher matcher = new InjectionMatcher(Collections.unmodifiableList(ids), automaton,
+                literalRules, literalStages, stageCounts, fallbacks.toArray(new Pattern[0]), maxSteps,
+                Collections.unmodifiableList(rejected), Collections.unmodifiableList(slow));
+        log.debug("Compiled {} injection rule(s): {} literal, {} regex fallback, {} automaton state(s)",
+                ids.size(), matcher.literalRuleCount, ids.size() - matcher.literalRuleCount,
+                automaton.stateCount());
+        return matcher;
+    }
+
+    /**
+     * Returns the ids of every rule matching the input, in configuration order.
+     */
+    public List<String> match(CharSequence input) {
+        return scan(input, null).getMatched();
+    }
+
+    /**
+     * Evaluates every rule, reporting the cost of the literal pass and of each regex fallback to
+     * {@code recorder} when one is given.
+     */
+    public Scan scan(CharSequence input, CostRecorder recorder) {
+        if (input == null || input.length() == 0 || ids.isEmpty()) {
+            return Scan.builder().matched(new ArrayList<>()).timedOut(List.of()).build();
+        }
+
+        boolean[] matched = new boolean[ids.size()];
+        if (literalRuleCount > 0) {
+            long start = System.nanoTime();
+            scanLiterals(input, matched);
+            if (recorder != null) {
+                recorder.record(LITERAL_PASS, System.nanoTime() - start, false);
+            }
+        }
+
+        List<String> timedOut = List.of();
+        for (int rule = 0; rule < fallbacks.length; rule++) {
+            Pattern pattern = fallbacks[rule];
+            if (pattern == null) {
+                continue;
+            }
+            long start = System.nanoTime();
+            boolean exceeded = false;
+            try {
+                matched[rule] = pattern.matcher(new BudgetedCharSequence(input, maxSteps)).find();
+            } catch (BudgetExceededException e) {
+                exceeded = true;
+                if (timedOut.isEmpty()) {
+                    timedOut = new ArrayList<>();
+                }
+                timedOut.add(ids.get(rule));
+            }
+            if (recorder != null) {
+                recorder.record(rule, System.nanoTime() - start, exceeded);
+            }
+        }
+
+        List<String> result = new ArrayList<>();
+        for (int rule = 0; rule < matched.length; rule++) {
+            if (matched[rule]) {
+                result.add(ids.get(rule));
+            }
+        }
+        return Scan.builder().matched(result).timedOut(timedOut).build();
+    }
+
+    public List<String> ids() {
+        return ids;
+    }
+
+    /** Patterns dropped at compile time, either invalid or too slow. */
+    public List<String> rejected() {
+        return rejected;
+    }
+
+    /** Patterns kept although they exceeded the step budget on a probe input. */
+    public List<String> slow() {
+        return slow;
+    }
+
+    /** True if the rule is evaluated by the shared literal pass rather than its own regex. */
+    public boolean isLiteralRule(int rule) {
+        return stageCounts[rule] > 0;
+    }
+
+    /**
+     * Runs the probes on a thread of its own with a small stack. A pattern that overflows it dies
+     * with that thread, leaving nothing in an inconsistent state behind.
+     */
+    private static ProbeResult probe(Pattern pattern, long maxSteps) {
+        ProbeResult[] result = {ProbeResult.STACK_OVERFLOW};
+        Throwable[] failure = new Throwable[1];
+        Thread thread = new Thread(null, () -> result[0] = exceedsBudgetOnProbes(pattern, maxSteps)
+                ? ProbeResult.OVER_BUDGET : ProbeResult.WITHIN_BUDGET, "injection-rule-probe", PROBE_STACK_SIZE);
+        thread.setUncaughtExceptionHandler((t, e) -> failure[0] = e);
+        thread.start();
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while probing injection pattern " + pattern.pattern(), e);
+        }
+        if (failure[0] != null && !(failure[0] instanceof StackOverflowError)) {
+            throw new IllegalStateException("Probing injection pattern " + pattern.pattern() + " failed", failure[0]);
+        }
+        return result[0];
+    }
+
+    /**
+     * Runs the pattern against inputs built from its own characters, which is where catastrophic
+     * backtracking shows up (for example {@code (a+)+$} against {@code aaaa...!}).
+     */
+    private static boolean exceedsBudgetOnProbes(Pattern pattern, long maxSteps) {
+        StringBuilder alphabet = new StringBuilder("a0 ");
+        String source = pattern.pattern();
+        for (int i = 0; i < source.length(); i++) {
+            char c = source.charAt(i);
+            if (c >= 0x20 && c < 0x7F && alphabet.indexOf(String.valueOf(c)) < 0) {
+                alphabet.append(c);
+            }
+        }
+        char[] probe = new char[PROBE_LENGTH];
+        for (int i = 0; i < alphabet.length(); i++) {
+            Arrays.fill(probe, alphabet.charAt(i));
+            probe[PROBE_LENGTH - 1] = '\u0000';
+            try {
+                pattern.matcher(new BudgetedCharSequence(CharBuffer.wrap(probe), maxSteps)).find();
+            } catch (BudgetExceededException e) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void scanLiterals(CharSequence input, boolean[] matched) {
+        int[] stage = new int[stageCounts.length];
+        int[] stageEnd = new int[stageCounts.length];
+        int pending = literalRuleCount;
+        int state = 0;
+        int length = input.length();
+        for (int i = 0; i < length && pending > 0; i++) {
+            state = automaton.step(state, input.charAt(i));
+            int[] hits = automaton.outputs(state);
+            for (int hit : hits) {
+                int start = i + 1 - automaton.literalLength(hit);
+                int[] rules = literalRules[hit];
+                int[] stages = literalStages[hit];
+                for (int k = 0; k < rules.length; k++) {
+                    int rule = rules[k];
+                    if (stage[rule] == stages[k] && start >= stageEnd[rule]) {
+                        stage[rule]++;
+                        stageEnd[rule] = i + 1;
+                        if (stage[rule] == stageCounts[rule]) {
+                            matched[rule] = true;
+                            pending--;
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    @lombok.Data
+    @lombok.Builder
+    public static class Scan {
+        private List<String> matched;
+        private List<String> timedOut;
+    }
+
+    /**
+     * Receives the time spent per rule, or for {@link #LITERAL_PASS}, during {@link #scan}.
+     */
+    @FunctionalInterface
+    public interface CostRecorder {
+        void record(int rule, long nanos, boolean timedOut);
+    }
+
+    /**
+     * Character view that fails once more than a fixed number of characters have been read.
+     * {@link java.util.regex.Matcher} reads its input only through {@link #charAt}, so this bounds
+     * the work a backtracking pattern can do.
+     */
+    static final class BudgetedCharSequence implements CharSequence {
+
+        private final CharSequence delegate;
+        private long remaining;
+
+        BudgetedCharSequence(CharSequence delegate, long budget) {
+            this.delegate = delegate;
+            this.remaining = budget;
+        }
+
+        @Override
+        public char charAt(int index) {
+            if (--remaining < 0) {
+                throw BudgetExceededException.INSTANCE;
+            }
+            return delegate.charAt(index);
+        }
+
+        @Override
+        public int length() {
+            return delegate.length();
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            return delegate.subSequence(start, end);
+        }
+
+        @Override
+        public String toString() {
+            return delegate.toString();
+        }
+    }
+
+    static final class BudgetExceededException extends RuntimeException {
+
+        static final BudgetExceededException INSTANCE = new BudgetExceededException();
+
+        private BudgetExceededException() {
+            super("Regex step budget exceeded", null, false, false);
+        }
+    }
+
+    /**
+     * Recognises the literal subset of regex syntax used by injection rules: an optional leading
+     * {@code (?i)}, then literal alternations (optionally parenthesised) joined by {@code .*}.
+     */
+    static final class LiteralRuleParser {
+
+        private static final String META = "\\^$.|?*+()[]{}";
+
+        private LiteralRuleParser() {
+        }
+
+        /**
+         * Returns the literal alternatives of each stage, or null if the pattern is not literal-shaped.
+         */
+        static List<List<String>> parse(String pattern) {
+            String body = pattern.startsWith("(?i)") ? pattern.substring(4) : pattern;
+            if (hasTopLevelAlternation(body)) {
+                // "a.*b|c" is (a.*b)|c, so only a bare alternation of literals qualifies
+                List<String> alternatives = parseStage(body);
+                return alternatives == null ? null : List.of(alternatives);
+            }
+            List<List<String>> stages = new ArrayList<>();
+            int pos = 0;
+            while (true) {
+                int end = stageEnd(body, pos);
+                if (end < 0) {
+                    return null;
+                }
+                List<String> alternatives = parseStage(body.substring(pos, end));
+                if (alternatives == null) {
+                    return null;
+                }
+                stages.add(alternatives);
+                if (end == body.length()) {
+                    return stages;
+                }
+                pos = end + 2; // skip ".*"
+            }
+        }
+
+        private static boolean hasTopLevelAlternation(String body) {
+            int depth = 0;
+            for (int i = 0; i < body.length(); i++) {
+                char c = body.charAt(i);
+                if (c == '\\') {
+                    i++;
+                } else if (c == '(') {
+                    depth++;
+                } else if (c == ')') {
+                    depth--;
+                } else if (c == '|' && depth == 0) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /** Index of the next top-level ".*" or the end of input; -1 on malformed nesting. */
+        private static int stageEnd(String body, int from) {
+            int depth = 0;
+            for (int i = from; i < body.length(); i++) {
+                char c = body.charAt(i);
+                if (c == '\\') {
+                    i++;
+                } else if (c == '(') {
+                    depth++;
+                } else if (c == ')') {
+                    if (--depth < 0) {
+                        return -1;
+                    }
+                } else if (c == '.' && depth == 0 && i + 1 < body.length() && body.charAt(i + 1) == '*') {
+                    // ".*?" and ".*+" are not plain DOTALL gaps
+                    if (i + 2 < body.length() && (body.charAt(i + 2) == '?' || body.charAt(i + 2) == '+')) {
+                        return -1;
+                    }
+                    return i;
+                }
+            }
+            return depth == 0 ? body.length() : -1;
+        }
+
+        private static List<String> parseStage(String stage) {
+            if (stage.isEmpty()) {
+                return null;
+            }
+            String inner = stage;
+            if (stage.charAt(0) == '(') {
+                if (stage.charAt(stage.length() - 1) != ')' || !closesAtEnd(stage)) {
+                    return null;
+                }
+                inner = stage.substring(1, stage.length() - 1);
+                if (inner.startsWith("?:")) {
+                    inner = inner.substring(2);
+                } else if (inner.startsWith("?")) {
+                    return null;
+                }
+            }
+
+            List<String> alternatives = new ArrayList<>();
+            StringBuilder current = new StringBuilder();
+            for (int i = 0; i < inner.length(); i++) {
+                char c = inner.charAt(i);
+                if (c == '\\') {
+                    if (i + 1 >= inner.length()) {
+                        return null;
+                    }
+                    char escaped = inner.charAt(++i);
+                    if (Character.isLetterOrDigit(escaped)) {
+                        return null; // \d, \s, \Q, back-references, ...
+                    }
+                    current.append(escaped);
+                } else if (c == '|') {
+                    if (current.length() == 0) {
+                        return null;
+                    }
+                    alternatives.add(current.toString());
+                    current.setLength(0);
+                } else if (META.indexOf(c) >= 0) {
+                    return null;
+                } else {
+                    current.append(c);
+                }
+            }
+            if (current.length() == 0) {
+                return null;
+            }
+            alternatives.add(current.toString());
+            return alternatives;
+        }
+
+        /** True if the opening parenthesis at index 0 is closed by the last character. */
+        private static boolean closesAtEnd(String stage) {
+            int depth = 0;
+            for (int i = 0; i < stage.length(); i++) {
+                char c = stage.charAt(i);
+                if (c == '\\') {
+                    i++;
+                } else if (c == '(') {
+                    depth++;
+                } else if (c == ')') {
+                    depth--;
+                    if (depth == 0 && i != stage.length() - 1) {
+                        return false;
+                    }
+                }
+            }
+            return depth == 0;
+        }
+    }
+}
@@ -0,0 +1,212 @@
+package com.trustai.service.prompt;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Aho-Corasick automaton over a fixed set of literals, compiled to a dense DFA.
+ * Matching folds US-ASCII letters to lower case, mirroring {@code Pattern.CASE_INSENSITIVE}
+ * without {@code UNICODE_CASE}. Instances are immutable and safe to share between threads.
+ */
+public final class LiteralAutomaton {
+
+    private static final int[] NO_OUTPUT = new int[0];
+
+    private final int[] asciiClasses;
+    private final Map<Character, Integer> otherClasses;
+    private final int classCount;
+    private final int[] transitions;
+    private final int[][] outputs;
+    private final String[] literals;
+
+    private LiteralAutomaton(int[] asciiClasses, Map<Character, Integer> otherClasses, int classCount,
+                             int[] transitions, int[][] outputs, String[] literals) {
+        this.asciiClasses = asciiClasses;
+        this.otherClasses = otherClasses;
+        this.classCount = classCount;
+        this.transitions = transitions;
+        this.outputs = outputs;
+        this.literals = literals;
+    }
+
+    /**
+     * Builds an automaton for the given literals. Literal ids are positions in the de-duplicated,
+     * case-folded list returned by {@link #literal(int)}; use {@link #idOf(String)} to look them up.
+     */
+    public static LiteralAutomaton build(List<String> literals) {
+        Map<String, Integer> ids = new LinkedHashMap<>();
+        for (String literal : literals) {
+            if (literal == null || literal.isEmpty()) {
+                throw new IllegalArgumentException("Literals must not be empty");
+            }
+            ids.putIfAbsent(fold(literal), ids.size());
+        }
+
+        int[] asciiClasses = new int[128];
+        Map<Character, Integer> otherClasses = new HashMap<>();
+        int classCount = 1; // class 0 is "any character not used by a literal"
+        for (String literal : ids.keySet()) {
+            for (int i = 0; i < literal.length(); i++) {
+                char c = literal.charAt(i);
+                if (c < 128) {
+                    if (asciiClasses[c] == 0) {
+                        asciiClasses[c] = classCount++;
+                    }
+                } else if (!otherClasses.containsKey(c)) {
+                    otherClasses.put(c, classCount++);
+                }
+            }
+        }
+        // Upper-case ASCII letters share the class of their lower-case form
+        for (char c = 'A'; c <= 'Z'; c++) {
+            asciiClasses[c] = asciiClasses[c + ('a' - 'A')];
+        }
+
+        List<int[]> trie = new ArrayList<>();
+        List<List<Integer>> own = new ArrayList<>();
+        trie.add(newRow(classCount));
+        own.add(new ArrayList<>());
+        for (Map.Entry<String, Integer> entry : ids.entrySet()) {
+            String literal = entry.getKey();
+            int state = 0;
+            for (int i = 0; i < literal.length(); i++) {
+                int cls = classOf(literal.charAt(i), asciiClasses, otherClasses);
+                int next = trie.get(state)[cls];
+                if (next < 0) {
+                    next = trie.size();
+                    trie.get(state)[cls] = next;
+                    trie.add(newRow(classCount));
+                    own.add(new ArrayList<>());
+                }
+                state = next;
+            }
+            own.get(state).add(entry.getValue());
+        }
+
+        int stateCount = trie.size();
+        int[] transitions = new int[stateCount * classCount];
+        int[] fail = new int[stateCount];
+        int[][] outputs = new int[stateCount][];
+        outputs[0] = NO_OUTPUT;
+
+        ArrayDeque<Integer> queue = new ArrayDeque<>();
+        int[] root = trie.get(0);
+        for (int cls = 0; cls < classCount; cls++) {
+            int next = root[cls];
+            if (next < 0) {
+                transitions[cls] = 0;
+            } else {
+                transitions[cls] = next;
+                fail[next] = 0;
+                queue.add(next);
+            }
+        }
+        while (!queue.isEmpty()) {
+            int state = queue.poll();
+            outputs[state] = merge(own.get(state), outputs[fail[state]]);
+            int[] row = trie.get(state);
+            for (int cls = 0; cls < classCount; cls++) {
+                int next = row[cls];
+                if (next < 0) {
+                    transitions[state * classCount + cls] = transitions[fail[state] * classCount + cls];
+                } else {
+                    transitions[state * classCount + cls] = next;
+                    fail[next] = transitions[fail[state] * classCount + cls];
+                    queue.add(next);
+                }
+            }
+        }
+
+        return new LiteralAutomaton(asciiClasses, otherClasses, classCount, transitions, outputs,
+                ids.keySet().toArray(new String[0]));
+    }
+
+    /**
+     * Advances the automaton by one input character.
+     */
+    public int step(int state, char c) {
+        int cls;
+        if (c < 128) {
+            cls = asciiClasses[c];
+        } else if (otherClasses.isEmpty()) {
+            cls = 0;
+        } else {
+            cls = otherClasses.getOrDefault(c, 0);
+        }
+        return transitions[state * classCount + cls];
+    }
+
+    /**
+     * Ids of every literal ending at the position that led to {@code state}. Never null.
+     */
+    public int[] outputs(int state) {
+        return outputs[state];
+    }
+
+    public int literalCount() {
+        return literals.length;
+    }
+
+    public String literal(int id) {
+        return literals[id];
+    }
+
+    public int literalLength(int id) {
+        return literals[id].length();
+    }
+
+    public int idOf(String literal) {
+        String folded = fold(literal);
+        for (int i = 0; i < literals.length; i++) {
+            if (literals[i].equals(folded)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    public int stateCount() {
+        return outputs.length;
+    }
+
+    static String fold(String literal) {
+        StringBuilder folded = null;
+        for (int i = 0; i < literal.length(); i++) {
+            char c = literal.charAt(i);
+            if (c >= 'A' && c <= 'Z') {
+                if (folded == null) {
+                    folded = new StringBuilder(literal);
+                }
+                folded.setCharAt(i, (char) (c + ('a' - 'A')));
+            }
+        }
+        return folded != null ? folded.toString() : literal;
+    }
+
+    private static int classOf(char c, int[] asciiClasses, Map<Character, Integer> otherClasses) {
+        return c < 128 ? asciiClasses[c] : otherClasses.getOrDefault(c, 0);
+    }
+
+    private static int[] newRow(int classCount) {
+        int[] row = new int[classCount];
+        Arrays.fill(row, -1);
+        return row;
+    }
+
+    private static int[] merge(List<Integer> own, int[] inherited) {
+        if (own.isEmpty()) {
+            return inherited;
+        }
+        int[] merged = new int[own.size() + inherited.length];
+        for (int i = 0; i < own.size(); i++) {
+            merged[i] = own.get(i);
+        }
+        System.arraycopy(inherited, 0, merged, own.size(), inherited.length);
+        return merged;
+    }
+}
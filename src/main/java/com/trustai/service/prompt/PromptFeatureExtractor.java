@@ -0,0 +1,102 @@
+package com.trustai.service.prompt;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Computes {@link PromptFeatures} in a single walk over the prompt: keyword hits through one
+ * literal automaton, encoding markers, a character-class histogram, the facts the sanitizer's fast
+ * path needs, and repetition stats through {@link RepetitionDetector.Scanner}.
+ */
+public final class PromptFeatureExtractor {
+
+    public static final List<String> RISK_KEYWORDS = List.of("jailbreak", "bypass");
+
+    private static final LiteralAutomaton KEYWORDS;
+    private static final boolean[] RISK_KEYWORD;
+
+    static {
+        List<String> literals = new ArrayList<>(RISK_KEYWORDS);
+        literals.addAll(Arrays.asList(PromptSanitizer.SQL_KEYWORDS));
+        KEYWORDS = LiteralAutomaton.build(literals);
+        RISK_KEYWORD = new boolean[KEYWORDS.literalCount()];
+        for (String keyword : RISK_KEYWORDS) {
+            RISK_KEYWORD[KEYWORDS.idOf(keyword)] = true;
+        }
+    }
+
+    private PromptFeatureExtractor() {
+    }
+
+    public static PromptFeatures extract(String prompt) {
+        int length = prompt == null ? 0 : prompt.length();
+        int[] charClasses = new int[PromptFeatures.CharClass.values().length];
+        RepetitionDetector.Scanner repetition = new RepetitionDetector.Scanner(prompt, RepetitionDetector.DEFAULT_WINDOW);
+
+        int riskKeywordHits = 0;
+        int sqlKeywordHits = 0;
+        boolean percentSign = false;
+        boolean hexEscape = false;
+        boolean unicodeEscape = false;
+        // Anything the sanitizer would rewrite; '<' is treated as a change even without a closing '>'
+        boolean rewritten = length > 0 && (prompt.charAt(0) == ' ' || prompt.charAt(length - 1) == ' ');
+
+        int state = 0;
+        char previous = 0;
+        for (int i = 0; i < length; i++) {
+            char c = prompt.charAt(i);
+            charClasses[classOf(c).ordinal()]++;
+
+            state = KEYWORDS.step(state, c);
+            for (int id : KEYWORDS.outputs(state)) {
+                if (RISK_KEYWORD[id]) {
+                    riskKeywordHits++;
+                } else {
+                    sqlKeywordHits++;
+                }
+            }
+
+            if (c == '%') {
+                percentSign = true;
+            } else if (previous == '\\') {
+                hexEscape |= c == 'x';
+                unicodeEscape |= c == 'u';
+            }
+            if (c <= 0x1F || c == 0x7F || c == '<' || (c == ' ' && previous == ' ')) {
+                rewritten = true;
+            }
+
+            repetition.accept(i);
+            previous = c;
+        }
+
+        return PromptFeatures.builder()
+                .length(length)
+                .riskKeywordHits(riskKeywordHits)
+                .sqlKeywordHits(sqlKeywordHits)
+                .percentSign(percentSign)
+                .hexEscape(hexEscape)
+                .unicodeEscape(unicodeEscape)
+                .sanitizationNoop(!rewritten && sqlKeywordHits == 0)
+                .charClasses(charClasses)
+                .repetition(repetition.finish())
+                .build();
+    }
+
+    private static PromptFeatures.CharClass classOf(char c) {
+        if (c >= 128) {
+            return PromptFeatures.CharClass.NON_ASCII;
+        }
+        if (c <= 0x1F || c == 0x7F) {
+            return PromptFeatures.CharClass.CONTROL;
+        }
+        if ((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z')) {
+            return PromptFeatures.CharClass.LETTER;
+        }
+        if (c >= '0' && c <= '9') {
+            return PromptFeatures.CharClass.DIGIT;
+        }
+        return c == ' ' ? PromptFeatures.CharClass.SPACE : PromptFeatures.CharClass.PUNCTUATION;
+    }
+}
@@ -0,0 +1,45 @@
+package com.trustai.service.prompt;
+
+import lombok.Builder;
+import lombok.Getter;
+
+/**
+ * Lexical features of a prompt, computed once per request by {@link PromptFeatureExtractor} and
+ * read by the policy engine, the sanitizer and the risk signals instead of rescanning the text.
+ */
+@Getter
+@Builder
+public class PromptFeatures {
+
+    public enum CharClass {
+        LETTER, DIGIT, SPACE, CONTROL, PUNCTUATION, NON_ASCII
+    }
+
+    private final int length;
+
+    /** Occurrences of {@link PromptFeatureExtractor#RISK_KEYWORDS}, ASCII case-insensitive */
+    private final int riskKeywordHits;
+
+    /** Occurrences of the SQL keywords the sanitizer truncates at */
+    private final int sqlKeywordHits;
+
+    private final boolean percentSign;
+    private final boolean hexEscape;
+    private final boolean unicodeEscape;
+
+    /** True when {@link PromptSanitizer#sanitize} is known to return the prompt unchanged */
+    private final boolean sanitizationNoop;
+
+    @Getter(lombok.AccessLevel.NONE)
+    private final int[] charClasses;
+
+    private final RepetitionDetector.Stats repetition;
+
+    public int count(CharClass charClass) {
+        return charClasses[charClass.ordinal()];
+    }
+
+    public boolean hasEncodingMarkers() {
+        return percentSign || hexEscape || unicodeEscape;
+    }
+}
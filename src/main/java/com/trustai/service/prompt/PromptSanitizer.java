@@ -0,0 +1,157 @@
+package com.trustai.service.prompt;
+
+/**
+ * Single-pass equivalent of the sanitization rules, applied in this order:
+ * <ol>
+ *   <li>{@code [\x00-\x1F\x7F]} is removed</li>
+ *   <li>{@code \s+} is collapsed to one space and the result trimmed</li>
+ *   <li>{@code <[^>]+>} is removed</li>
+ *   <li>{@code (?i)<script[^>]*>.*?</script>} is removed - never matches once step 3 has run</li>
+ *   <li>{@code (?i)(union|select|...|execute).*} is removed, up to the next line terminator</li>
+ * </ol>
+ * Steps 1-3 are fused into one walk over the input that writes into a per-thread buffer. Step 5
+ * then compacts that buffer in place, and the only allocation is the returned string (none at all
+ * when nothing had to change).
+ */
+public final class PromptSanitizer {
+
+    /** Buffers above this size are not kept per thread. */
+    private static final int MAX_POOLED_CAPACITY = 64 * 1024;
+
+    private static final ThreadLocal<char[]> BUFFER = ThreadLocal.withInitial(() -> new char[4096]);
+
+    static final String[] SQL_KEYWORDS = {
+        "union", "select", "insert", "update", "delete", "drop", "create", "alter", "exec", "execute"
+    };
+
+    private PromptSanitizer() {
+    }
+
+    public static String sanitize(String prompt) {
+        if (prompt == null || prompt.isEmpty()) {
+            return prompt;
+        }
+
+        char[] buffer = buffer(prompt.length());
+        int length = stripAndCollapse(prompt, buffer);
+        length = removeSqlKeywords(buffer, length);
+
+        if (length == prompt.length()) {
+            // Every rule only removes characters or shortens runs, so equal length means unchanged
+            return prompt;
+        }
+        return new String(buffer, 0, length);
+    }
+
+    /**
+     * Control-character removal, whitespace collapsing, trimming and tag removal in one pass.
+     */
+    private static int stripAndCollapse(String prompt, char[] buffer) {
+        int length = 0;
+        int emitted = 0; // characters produced by the whitespace step, before tags are removed
+        boolean pendingSpace = false;
+        int tagStart = -1;
+
+        for (int i = 0; i < prompt.length(); i++) {
+            char c = prompt.charAt(i);
+            if (c <= 0x1F || c == 0x7F) {
+                continue;
+            }
+            if (c == ' ') {
+                pendingSpace = true;
+                continue;
+            }
+            if (pendingSpace) {
+                pendingSpace = false;
+                if (emitted > 0) {
+                    buffer[length++] = ' ';
+                    emitted++;
+                }
+            }
+            emitted++;
+
+            if (c == '<') {
+                if (tagStart < 0) {
+                    tagStart = length;
+                }
+            } else if (c == '>' && tagStart >= 0) {
+                boolean hasBody = length - tagStart > 1;
+                int start = tagStart;
+                tagStart = -1;
+                if (hasBody) {
+                    length = start;
+                    continue;
+                }
+            }
+            buffer[length++] = c;
+        }
+        return length;
+    }
+
+    /**
+     * Drops everything from the first SQL keyword up to, but not including, the next line terminator.
+     */
+    private static int removeSqlKeywords(char[] buffer, int length) {
+        int write = 0;
+        int read = 0;
+        while (read < length) {
+            if (startsWithKeyword(buffer, read, length)) {
+                read++;
+                while (read < length && !isLineTerminator(buffer[read])) {
+                    read++;
+                }
+                continue;
+            }
+            buffer[write++] = buffer[read++];
+        }
+        return write;
+    }
+
+    private static boolean startsWithKeyword(char[] buffer, int offset, int length) {
+        char first = lower(buffer[offset]);
+        if (first != 'u' && first != 's' && first != 'i' && first != 'd'
+                && first != 'c' && first != 'a' && first != 'e') {
+            return false;
+        }
+        for (String keyword : SQL_KEYWORDS) {
+            if (keyword.charAt(0) == first && regionMatches(buffer, offset, length, keyword)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean regionMatches(char[] buffer, int offset, int length, String keyword) {
+        if (length - offset < keyword.length()) {
+            return false;
+        }
+        for (int i = 1; i < keyword.length(); i++) {
+            if (lower(buffer[offset + i]) != keyword.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /** Characters that {@code .} does not match without {@code DOTALL}. */
+    private static boolean isLineTerminator(char c) {
+        return c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029';
+    }
+
+    /** US-ASCII only, like {@code (?i)} without {@code UNICODE_CASE}. */
+    private static char lower(char c) {
+        return c >= 'A' && c <= 'Z' ? (char) (c + ('a' - 'A')) : c;
+    }
+
+    private static char[] buffer(int capacity) {
+        if (capacity > MAX_POOLED_CAPACITY) {
+            return new char[capacity];
+        }
+        char[] buffer = BUFFER.get();
+        if (buffer.length < capacity) {
+            buffer = new char[Math.max(capacity, buffer.length * 2)];
+            BUFFER.set(buffer);
+        }
+        return buffer;
+    }
+}
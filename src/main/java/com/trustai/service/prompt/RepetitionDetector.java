@@ -0,0 +1,219 @@
+package com.trustai.service.prompt;
+
+import java.util.Arrays;
+
+/**
+ * Linear-time detector for repeated text, used to spot token stuffing.
+ * <p>
+ * Every window of {@code window} characters is hashed with a rolling polynomial hash and looked
+ * up in an open-addressing table of first occurrences; candidates are verified character by
+ * character, so hash collisions never produce false repeats. Once a window repeats an earlier one,
+ * the following windows are extended against the same alignment with a single character
+ * comparison each, which keeps highly periodic input (the token-stuffing case) linear as well.
+ * Scratch tables are kept per thread, so a call allocates nothing but its result.
+ */
+public final class RepetitionDetector {
+
+    public static final int DEFAULT_WINDOW = 50;
+
+    private static final long BASE = 0x100000001B3L;
+
+    /** Tables above this many slots are not kept per thread. */
+    private static final int MAX_POOLED_SLOTS = 1 << 16;
+
+    private static final ThreadLocal<Tables> TABLES = ThreadLocal.withInitial(() -> new Tables(1 << 10));
+
+    private RepetitionDetector() {
+    }
+
+    /**
+     * Analyzes {@code text} using windows of {@code window} characters. Texts shorter than two
+     * windows cannot contain a repeat and yield an empty result.
+     */
+    public static Stats analyze(CharSequence text, int window) {
+        Scanner scanner = new Scanner(text, window);
+        int length = text == null ? 0 : text.length();
+        for (int i = 0; i < length; i++) {
+            scanner.accept(i);
+        }
+        return scanner.finish();
+    }
+
+    public static Stats analyze(CharSequence text) {
+        return analyze(text, DEFAULT_WINDOW);
+    }
+
+    /**
+     * Incremental form of {@link #analyze}, for callers that already walk the text once and want
+     * repetition stats from the same pass. {@link #accept} must be called for every index in order.
+     */
+    public static final class Scanner {
+        private final CharSequence text;
+        private final int window;
+        private final int length;
+        private final boolean active;
+        private long[] hashes;
+        private int[] positions;
+        private int mask;
+        private long highPower = 1;
+        private long hash;
+
+        private int repeatedWindows;
+        private int covered;
+        private int coveredUntil;
+        private int runAlign = -1;
+        private int runLength;
+        private int longestRun;
+
+        public Scanner(CharSequence text, int window) {
+            this.text = text;
+            this.window = window;
+            this.length = text == null ? 0 : text.length();
+            this.active = window > 0 && length >= window + 1;
+            if (active) {
+                int windows = length - window + 1;
+                Tables tables = tables(windows);
+                hashes = tables.hashes;
+                positions = tables.positions;
+                mask = tables.mask(windows);
+                Arrays.fill(positions, 0, mask + 1, 0);
+                for (int i = 1; i < window; i++) {
+                    highPower *= BASE;
+                }
+            }
+        }
+
+        /**
+         * Consumes the character at {@code index}, completing the window that ends there.
+         */
+        public void accept(int index) {
+            if (!active) {
+                return;
+            }
+            char c = text.charAt(index);
+            if (index < window) {
+                hash = hash * BASE + c;
+                if (index == window - 1) {
+                    window(0);
+                }
+                return;
+            }
+            hash = (hash - text.charAt(index - window) * highPower) * BASE + c;
+            window(index - window + 1);
+        }
+
+        private void window(int i) {
+            boolean repeated;
+            if (runAlign >= 0 && text.charAt(runAlign + window) == text.charAt(i + window - 1)) {
+                // Same alignment as the previous window, only the newest character needs checking
+                runAlign++;
+                runLength++;
+                repeated = true;
+            } else {
+                int earlier = findOrInsert(hashes, positions, mask, hash, i);
+                repeated = earlier >= 0 && regionMatches(text, earlier, i, window);
+                runAlign = repeated ? earlier : -1;
+                runLength = repeated ? 1 : 0;
+            }
+
+            if (repeated) {
+                repeatedWindows++;
+                covered += i + window - Math.max(i, coveredUntil);
+                coveredUntil = i + window;
+                longestRun = Math.max(longestRun, runLength);
+            }
+        }
+
+        public Stats finish() {
+            if (!active) {
+                return Stats.builder().length(length).window(window).build();
+            }
+            return Stats.builder()
+                    .length(length)
+                    .window(window)
+                    .repeatedWindows(repeatedWindows)
+                    .repeatedChars(covered)
+                    .repeatRatio((double) covered / length)
+                    .longestRepeatedSpan(longestRun == 0 ? 0 : longestRun + window - 1)
+                    .build();
+        }
+    }
+
+    /**
+     * Returns the first position with the same hash, or -1 after recording {@code position}.
+     */
+    private static int findOrInsert(long[] hashes, int[] positions, int mask, long hash, int position) {
+        int slot = mix(hash) & mask;
+        while (positions[slot] != 0) {
+            if (hashes[slot] == hash) {
+                return positions[slot] - 1;
+            }
+            slot = (slot + 1) & mask;
+        }
+        hashes[slot] = hash;
+        positions[slot] = position + 1;
+        return -1;
+    }
+
+    private static int mix(long hash) {
+        long h = hash * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    private static boolean regionMatches(CharSequence text, int first, int second, int window) {
+        for (int i = 0; i < window; i++) {
+            if (text.charAt(first + i) != text.charAt(second + i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static Tables tables(int windows) {
+        int slots = Tables.slotsFor(windows);
+        if (slots > MAX_POOLED_SLOTS) {
+            return new Tables(slots);
+        }
+        Tables tables = TABLES.get();
+        if (tables.positions.length < slots) {
+            tables = new Tables(slots);
+            TABLES.set(tables);
+        }
+        return tables;
+    }
+
+    private static final class Tables {
+        private final long[] hashes;
+        private final int[] positions;
+
+        private Tables(int slots) {
+            this.hashes = new long[slots];
+            this.positions = new int[slots];
+        }
+
+        /** Power of two with at most 50% load. */
+        private static int slotsFor(int windows) {
+            return Integer.highestOneBit(Math.max(windows, 8) * 2 - 1) << 1;
+        }
+
+        private int mask(int windows) {
+            return slotsFor(windows) - 1;
+        }
+    }
+
+    /**
+     * Result of {@link #analyze}. {@code longestRepeatedSpan} is the longest run of consecutive
+     * repeated windows expressed in characters; spans shorter than one window are not reported.
+     */
+    @lombok.Data
+    @lombok.Builder
+    public static class Stats {
+        private int length;
+        private int window;
+        private int repeatedWindows;
+        /** Characters covered by at least one window that also occurs earlier in the text */
+        private int repeatedChars;
+        private double repeatRatio;
+        private int longestRepeatedSpan;
+    }
+}
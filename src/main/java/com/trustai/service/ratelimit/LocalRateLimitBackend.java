@@ -0,0 +1,98 @@
+package com.trustai.service.ratelimit;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.trustai.config.RateLimitProperties;
+import io.github.bucket4j.Bandwidth;
+import io.github.bucket4j.Refill;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Per-instance token buckets held in memory, see {@link TokenBucket}.
+ * <p>
+ * Each distinct combination of dimension keys resolves once to a {@link LimitSet} holding its
+ * buckets, so a request costs one cache lookup whatever the number of dimensions. Limit sets live
+ * in a size-bounded Caffeine cache that drops sets idle for longer than the window; buckets are
+ * shared between sets through a weak-valued index and disappear once no set refers to them, so
+ * memory follows active clients rather than every client ever seen.
+ */
+@Component
+@RequiredArgsConstructor
+public class LocalRateLimitBackend implements RateLimitBackend {
+
+    private final RateLimitProperties properties;
+    private final MeterRegistry meterRegistry;
+
+    private Cache<String, LimitSet> limitSets;
+    private Cache<String, TokenBucket> buckets;
+    private long windowNanos;
+
+    @PostConstruct
+    public void init() {
+        windowNanos = Duration.ofSeconds(properties.getDefaultWindow()).toNanos();
+        long idleExpiry = Math.max(properties.getIdleExpirySeconds(), properties.getDefaultWindow());
+        limitSets = Caffeine.newBuilder()
+                .maximumSize(properties.getMaxBuckets())
+                .expireAfterAccess(Duration.ofSeconds(idleExpiry))
+                .recordStats()
+                .build();
+        buckets = Caffeine.newBuilder()
+                .weakValues()
+                .build();
+        // cache.size, cache.evictions, cache.gets etc. tagged cache=rateLimitBuckets
+        CaffeineCacheMetrics.monitor(meterRegistry, limitSets, "rateLimitBuckets");
+    }
+
+    @Override
+    public long tryConsume(RateLimitRequest request, long tokens) {
+        return limitSets.get(request.getKey(), key -> new LimitSet(request)).tryConsume(tokens, System.nanoTime());
+    }
+
+    private TokenBucket bucket(String key, int limit) {
+        return buckets.get(key, k -> new TokenBucket(limit, windowNanos, System.nanoTime(), properties.getSpinLimit()));
+    }
+
+    /**
+     * bucket4j equivalent of {@link TokenBucket}, for buckets kept in Redis
+     */
+    static Bandwidth bandwidth(int limit, int windowSeconds) {
+        return Bandwidth.classic(limit, Refill.intervally(limit, Duration.ofSeconds(windowSeconds)));
+    }
+
+    /**
+     * The buckets of one combination of dimension keys
+     */
+    private final class LimitSet {
+        private final TokenBucket[] members;
+
+        private LimitSet(RateLimitRequest request) {
+            members = new TokenBucket[request.size()];
+            for (int i = 0; i < members.length; i++) {
+                members[i] = bucket(request.key(i), request.limit(i));
+            }
+        }
+
+        private long tryConsume(long tokens, long now) {
+            long tightest = -1;
+            for (int i = 0; i < members.length; i++) {
+                long result = members[i].tryConsume(Math.min(tokens, members[i].capacity()), now);
+                if (!TokenBucket.consumed(result)) {
+                    for (int j = 0; j < i; j++) {
+                        members[j].refund(Math.min(tokens, members[j].capacity()), now);
+                    }
+                    return result;
+                }
+                if (tightest == -1 || TokenBucket.remaining(result) < TokenBucket.remaining(tightest)) {
+                    tightest = result;
+                }
+            }
+            return tightest;
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package com.trustai.service.ratelimit;
+
+/**
+ * Storage for token buckets. Each bucket key maps to a fixed limit, which is both the capacity and
+ * the refill per window.
+ */
+public interface RateLimitBackend {
+
+    /**
+     * Consumes {@code tokens} from every bucket of the request, or from none of them. Tokens above
+     * a bucket's capacity are capped at the capacity, so oversized requests drain a bucket rather
+     * than being impossible. The result is packed as by {@link TokenBucket#encode}: for a rejected
+     * request it describes the rejecting bucket, otherwise the bucket with the fewest tokens left.
+     */
+    long tryConsume(RateLimitRequest request, long tokens);
+}
@@ -0,0 +1,72 @@
+package com.trustai.service.ratelimit;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The buckets one request is charged against, one per enabled dimension. All of them are
+ * checked in a single backend call; {@link #getKey()} identifies the combination.
+ */
+public final class RateLimitRequest {
+
+    public enum Dimension {
+        USER, IP, ENDPOINT, ORGANIZATION
+    }
+
+    private final String key;
+    private final Dimension[] dimensions;
+    private final String[] keys;
+    private final int[] limits;
+
+    private RateLimitRequest(List<Dimension> dimensions, List<String> keys, List<Integer> limits) {
+        this.dimensions = dimensions.toArray(new Dimension[0]);
+        this.keys = keys.toArray(new String[0]);
+        this.limits = limits.stream().mapToInt(Integer::intValue).toArray();
+        this.key = String.join("|", keys);
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public int size() {
+        return keys.length;
+    }
+
+    public Dimension dimension(int index) {
+        return dimensions[index];
+    }
+
+    /** Bucket key of one dimension, prefixed with the dimension name */
+    public String key(int index) {
+        return keys[index];
+    }
+
+    public int limit(int index) {
+        return limits[index];
+    }
+
+    public static final class Builder {
+        private final List<Dimension> dimensions = new ArrayList<>(4);
+        private final List<String> keys = new ArrayList<>(4);
+        private final List<Integer> limits = new ArrayList<>(4);
+
+        public Builder add(Dimension dimension, String key, int limit) {
+            dimensions.add(dimension);
+            keys.add(dimension.name().toLowerCase() + ":" + key);
+            limits.add(limit);
+            return this;
+        }
+
+        public RateLimitRequest build() {
+            if (keys.isEmpty()) {
+                throw new IllegalStateException("A rate limit request needs at least one dimension");
+            }
+            return new RateLimitRequest(dimensions, keys, limits);
+        }
+    }
+}
@@ -0,0 +1,247 @@
+package com.trustai.service.ratelimit;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.github.benmanes.caffeine.cache.Scheduler;
+import com.trustai.config.RateLimitProperties;
+import io.github.bucket4j.BucketConfiguration;
+import io.github.bucket4j.VerboseResult;
+import io.github.bucket4j.distributed.BucketProxy;
+import io.github.bucket4j.distributed.ExpirationAfterWriteStrategy;
+import io.github.bucket4j.distributed.proxy.ProxyManager;
+import io.github.bucket4j.redis.lettuce.cas.LettuceBasedProxyManager;
+import io.lettuce.core.AbstractRedisClient;
+import io.lettuce.core.RedisClient;
+import io.lettuce.core.api.StatefulConnection;
+import io.lettuce.core.cluster.RedisClusterClient;
+import io.lettuce.core.codec.ByteArrayCodec;
+import io.lettuce.core.codec.RedisCodec;
+import io.lettuce.core.codec.StringCodec;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Primary;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Cluster-wide token buckets stored in Redis through bucket4j, with local reservations.
+ * <p>
+ * Instead of one Redis round trip per request, an instance reserves a small batch of tokens from
+ * the shared bucket and serves requests from it. Reservations unused for
+ * {@code reservation-ttl-ms} are handed back with {@code addTokens}, so idle instances do not
+ * starve busy ones. Batches are at most a twentieth of the limit, which keeps the tokens parked
+ * on other instances small compared to what a user may spend. When Redis is unreachable the
+ * instance falls back to its local buckets rather than rejecting traffic.
+ */
+@Component
+@Primary
+@Slf4j
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "app.security.rate-limit", name = "mode", havingValue = "distributed")
+public class RedisRateLimitBackend implements RateLimitBackend {
+
+    private static final int BATCH_DIVISOR = 20;
+
+    private final RateLimitProperties properties;
+    private final LettuceConnectionFactory connectionFactory;
+    private final LocalRateLimitBackend fallback;
+    private final MeterRegistry meterRegistry;
+
+    private StatefulConnection<String, byte[]> connection;
+    private ProxyManager<String> proxyManager;
+    private Cache<String, Reservation> reservations;
+    private Timer reserveCalls;
+    private Timer returnCalls;
+    private Counter localGrants;
+    private Counter errors;
+
+    @PostConstruct
+    public void init() {
+        RedisCodec<String, byte[]> codec = RedisCodec.of(StringCodec.UTF8, ByteArrayCodec.INSTANCE);
+        ExpirationAfterWriteStrategy expiration = ExpirationAfterWriteStrategy
+                .basedOnTimeForRefillingBucketUpToMax(Duration.ofSeconds(10));
+        AbstractRedisClient client = connectionFactory.getRequiredNativeClient();
+        if (client instanceof RedisClusterClient clusterClient) {
+            var clusterConnection = clusterClient.connect(codec);
+            connection = clusterConnection;
+            proxyManager = LettuceBasedProxyManager.builderFor(clusterConnection).withExpirationStrategy(expiration).build();
+        } else {
+            var standaloneConnection = ((RedisClient) client).connect(codec);
+            connection = standaloneConnection;
+            proxyManager = LettuceBasedProxyManager.builderFor(standaloneConnection).withExpirationStrategy(expiration).build();
+        }
+
+        reservations = Caffeine.newBuilder()
+                .maximumSize(properties.getMaxBuckets())
+                .expireAfterAccess(Duration.ofMillis(properties.getDistributed().getReservationTtlMs()))
+                .scheduler(Scheduler.systemScheduler())
+                .removalListener((String key, Reservation reservation, RemovalCause cause) -> {
+                    if (reservation != null) {
+                        giveBack(reservation);
+                    }
+                })
+                .build();
+
+        reserveCalls = Timer.builder("rate.limit.redis.calls").tag("operation", "reserve").register(meterRegistry);
+        returnCalls = Timer.builder("rate.limit.redis.calls").tag("operation", "return").register(meterRegistry);
+        localGrants = Counter.builder("rate.limit.reservation.grants").register(meterRegistry);
+        errors = Counter.builder("rate.limit.redis.errors").register(meterRegistry);
+        log.info("Distributed rate limiting enabled (batch size {}, reservation ttl {} ms)",
+                properties.getDistributed().getBatchSize(), properties.getDistributed().getReservationTtlMs());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        // Hand every reservation back before the connection goes away; removal listeners run
+        // asynchronously, so this is done here and they find the reservations already empty
+        reservations.asMap().values().forEach(this::giveBack);
+        reservations.invalidateAll();
+        connection.close();
+    }
+
+    @Override
+    public long tryConsume(RateLimitRequest request, long tokens) {
+        int charged = 0;
+        try {
+            long tightest = -1;
+            for (; charged < request.size(); charged++) {
+                long result = consume(request.key(charged), request.limit(charged),
+                        Math.min(tokens, request.limit(charged)));
+                if (!TokenBucket.consumed(result)) {
+                    refund(request, charged, tokens);
+                    return result;
+                }
+                if (tightest == -1 || TokenBucket.remaining(result) < TokenBucket.remaining(tightest)) {
+                    tightest = result;
+                }
+            }
+            return tightest;
+        } catch (RuntimeException e) {
+            // The local buckets charge every key again, so the keys already charged here are refunded
+            refund(request, charged, tokens);
+            errors.increment();
+            log.warn("Redis rate limit unavailable, using local buckets for {}: {}", request.getKey(), e.getMessage());
+            return fallback.tryConsume(request, tokens);
+        }
+    }
+
+    /**
+     * Serves the request from the key's reservation, reserving more from Redis when it runs short.
+     * The round trip happens outside the reservation's lock, so requests that the reservation can
+     * still serve never wait on the network; concurrent ones may each reserve a batch, and what
+     * goes unused returns to Redis with the reservation.
+     */
+    private long consume(String key, int limit, long tokens) {
+        while (true) {
+            Reservation reservation = reservations.get(key, k -> new Reservation(bucket(k, limit)));
+            long wanted;
+            synchronized (reservation) {
+                if (reservation.closed) {
+                    continue; // expired between lookup and lock, its tokens are already back in Redis
+                }
+                if (reservation.available >= tokens) {
+                    return grant(reservation, tokens);
+                }
+                int maxBatch = Math.max(1, Math.min(properties.getDistributed().getBatchSize(), limit / BATCH_DIVISOR));
+                wanted = Math.max(tokens - reservation.available, maxBatch);
+            }
+
+            VerboseResult<Long> result = reserveCalls.record(() ->
+                    reservation.bucket.asVerbose().tryConsumeAsMuchAsPossible(wanted));
+            long reserved = result.getValue();
+            synchronized (reservation) {
+                if (!reservation.closed) {
+                    reservation.available += reserved;
+                    reservation.remoteRemaining = result.getState().getAvailableTokens();
+                    reservation.refilledAt = System.nanoTime()
+                            + result.getState().calculateFullRefillingTime(result.getOperationTimeNanos());
+                    if (reservation.available >= tokens) {
+                        return grant(reservation, tokens);
+                    }
+                    return TokenBucket.encode(false, reservation.available + reservation.remoteRemaining,
+                            reservation.refilledAt - System.nanoTime());
+                }
+            }
+            // Expired during the round trip; hand back what it got and start over with a new one
+            returnTokens(reservation, reserved);
+        }
+    }
+
+    private long grant(Reservation reservation, long tokens) {
+        reservation.available -= tokens;
+        localGrants.increment();
+        return TokenBucket.encode(true, reservation.available + reservation.remoteRemaining,
+                reservation.refilledAt - System.nanoTime());
+    }
+
+    /**
+     * Puts the tokens taken for the first {@code count} keys back into their local reservations;
+     * they reach Redis with the rest of it
+     */
+    private void refund(RateLimitRequest request, int count, long tokens) {
+        for (int i = 0; i < count; i++) {
+            Reservation reservation = reservations.getIfPresent(request.key(i));
+            if (reservation != null) {
+                synchronized (reservation) {
+                    if (!reservation.closed) {
+                        reservation.available += Math.min(tokens, request.limit(i));
+                    }
+                }
+            }
+        }
+    }
+
+    private void giveBack(Reservation reservation) {
+        long unused;
+        synchronized (reservation) {
+            reservation.closed = true;
+            unused = reservation.available;
+            reservation.available = 0;
+        }
+        returnTokens(reservation, unused);
+    }
+
+    private void returnTokens(Reservation reservation, long tokens) {
+        if (tokens > 0) {
+            try {
+                returnCalls.record(() -> reservation.bucket.addTokens(tokens));
+            } catch (RuntimeException e) {
+                errors.increment();
+                log.debug("Could not return {} reserved token(s) to Redis", tokens, e);
+            }
+        }
+    }
+
+    private BucketProxy bucket(String key, int limit) {
+        BucketConfiguration configuration = BucketConfiguration.builder()
+                .addLimit(LocalRateLimitBackend.bandwidth(limit, properties.getDefaultWindow()))
+                .build();
+        return proxyManager.builder().build(properties.getDistributed().getKeyPrefix() + key, () -> configuration);
+    }
+
+    /**
+     * Tokens this instance took from the shared bucket but has not spent yet
+     */
+    private static final class Reservation {
+        private final BucketProxy bucket;
+        private long available;
+        /** Tokens left in Redis as of the last reservation, used for the remaining-count header */
+        private long remoteRemaining;
+        /** Local nano time at which the shared bucket is full again, as of the last reservation */
+        private long refilledAt;
+        private boolean closed;
+
+        private Reservation(BucketProxy bucket) {
+            this.bucket = bucket;
+        }
+    }
+}
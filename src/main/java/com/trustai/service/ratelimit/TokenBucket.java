@@ -0,0 +1,148 @@
+package com.trustai.service.ratelimit;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock-free token bucket that refills to capacity at the start of every window, the same
+ * semantics as bucket4j's {@code Refill.intervally(capacity, window)}, with windows aligned to
+ * the bucket's creation.
+ * <p>
+ * The whole state, the current window number and the tokens left in it, is packed into one
+ * {@code long} and updated with a single CAS, so consuming and reading what is left is one
+ * atomic step. Results are packed into a {@code long} as well and decoded with the static
+ * accessors, so the hot path allocates nothing. Under heavy contention on one bucket, threads
+ * that keep losing the CAS back off and are finally serialized on the bucket's monitor, which
+ * bounds the wasted work on hot keys.
+ */
+public final class TokenBucket {
+
+    /** Largest capacity and token count that fits the packed representations. */
+    public static final int MAX_CAPACITY = Integer.MAX_VALUE;
+
+    private static final long TOKENS_MASK = 0xFFFF_FFFFL;
+    private static final long REMAINING_MASK = 0x7FFF_FFFFL;
+    private static final long MICROS_MASK = 0xFFFF_FFFFL;
+    private static final int MICROS_SHIFT = 31;
+    private static final long CONSUMED_BIT = 1L << 63;
+
+    private final int capacity;
+    private final long windowNanos;
+    private final long origin;
+    private final int spinLimit;
+    private final AtomicLong state;
+
+    /**
+     * @param spinLimit failed CAS attempts before a thread backs off; twice as many before it
+     *                  takes the bucket's lock
+     */
+    public TokenBucket(int capacity, long windowNanos, long nowNanos, int spinLimit) {
+        if (capacity <= 0 || windowNanos <= 0) {
+            throw new IllegalArgumentException("Capacity and window must be positive");
+        }
+        this.capacity = capacity;
+        this.windowNanos = windowNanos;
+        this.origin = nowNanos;
+        this.spinLimit = Math.max(1, spinLimit);
+        this.state = new AtomicLong(pack(0, capacity));
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    /**
+     * Takes {@code tokens} if that many are left in the current window. Returns the outcome, the
+     * tokens left afterwards and the time until the next refill, packed; see {@link #consumed},
+     * {@link #remaining} and {@link #nanosUntilRefill}.
+     */
+    public long tryConsume(long tokens, long nowNanos) {
+        long window = (nowNanos - origin) / windowNanos;
+        long nanosUntilRefill = origin + (window + 1) * windowNanos - nowNanos;
+
+        for (int attempt = 0; attempt < 2 * spinLimit; attempt++) {
+            if (attempt >= spinLimit) {
+                Thread.onSpinWait();
+            }
+            long result = attempt(tokens, window, nanosUntilRefill);
+            if (result != -1) {
+                return result;
+            }
+        }
+        // Hot key: losers take turns instead of spinning against each other
+        synchronized (this) {
+            long result;
+            do {
+                result = attempt(tokens, window, nanosUntilRefill);
+            } while (result == -1);
+            return result;
+        }
+    }
+
+    /**
+     * One read-modify-CAS round; -1 when another thread changed the state in between.
+     */
+    private long attempt(long tokens, long window, long nanosUntilRefill) {
+        long current = state.get();
+        long currentWindow = current >>> 32;
+        // A later window is full again; a thread with an older clock reading sees the newer state
+        long available = window > currentWindow ? capacity : current & TOKENS_MASK;
+        if (window < currentWindow) {
+            window = currentWindow;
+        }
+        if (available < tokens) {
+            return result(false, available, nanosUntilRefill);
+        }
+        long next = pack(window, available - tokens);
+        if (state.compareAndSet(current, next)) {
+            return result(true, available - tokens, nanosUntilRefill);
+        }
+        return -1;
+    }
+
+    /**
+     * Puts back up to {@code tokens} without exceeding capacity, e.g. when a request that was
+     * charged in several buckets is rejected by a later one.
+     */
+    public void refund(long tokens, long nowNanos) {
+        long window = (nowNanos - origin) / windowNanos;
+        while (true) {
+            long current = state.get();
+            if ((current >>> 32) != window) {
+                return; // refilled since, nothing to give back
+            }
+            long next = pack(window, Math.min(capacity, (current & TOKENS_MASK) + tokens));
+            if (state.compareAndSet(current, next)) {
+                return;
+            }
+        }
+    }
+
+    private static long pack(long window, long tokens) {
+        return (window << 32) | tokens;
+    }
+
+    private static long result(boolean consumed, long remaining, long nanosUntilRefill) {
+        long micros = Math.min((nanosUntilRefill + 999) / 1000, MICROS_MASK);
+        return (consumed ? CONSUMED_BIT : 0) | (micros << MICROS_SHIFT) | Math.min(remaining, REMAINING_MASK);
+    }
+
+    /**
+     * Packs a result produced elsewhere, such as by a remote bucket, in the same format.
+     */
+    public static long encode(boolean consumed, long remaining, long nanosUntilRefill) {
+        return result(consumed, remaining, Math.max(0, nanosUntilRefill));
+    }
+
+    public static boolean consumed(long result) {
+        return (result & CONSUMED_BIT) != 0;
+    }
+
+    public static long remaining(long result) {
+        return result & REMAINING_MASK;
+    }
+
+    /** Microsecond resolution, rounded up. */
+    public static long nanosUntilRefill(long result) {
+        return ((result >>> MICROS_SHIFT) & MICROS_MASK) * 1000;
+    }
+}
@@ -0,0 +1,25 @@
+package com.trustai.service.risk;
+
+import org.springframework.stereotype.Component;
+
+@Component
+public class EncodingSignal implements RiskSignal {
+
+    @Override
+    public String name() {
+        return "encoding";
+    }
+
+    @Override
+    public int cost() {
+        return 2;
+    }
+
+    @Override
+    public RiskContribution evaluate(RiskContext context) {
+        if (context.getFeatures().hasEncodingMarkers()) {
+            return RiskContribution.of(15, "Potential encoding obfuscation");
+        }
+        return RiskContribution.NONE;
+    }
+}
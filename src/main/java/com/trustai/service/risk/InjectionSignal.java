@@ -0,0 +1,49 @@
+package com.trustai.service.risk;
+
+import com.trustai.service.PromptSanitizationService;
+import com.trustai.service.prompt.InjectionMatcher;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+@Component
+@RequiredArgsConstructor
+public class InjectionSignal implements RiskSignal {
+
+    private final PromptSanitizationService sanitizationService;
+
+    @Override
+    public String name() {
+        return "injection";
+    }
+
+    @Override
+    public int cost() {
+        return 100;
+    }
+
+    @Override
+    public boolean parallel() {
+        return true;
+    }
+
+    @Override
+    public RiskContribution evaluate(RiskContext context) {
+        InjectionMatcher.Scan injection = sanitizationService.scanInjection(context.getPrompt());
+        if (injection.getMatched().isEmpty() && injection.getTimedOut().isEmpty()) {
+            return RiskContribution.NONE;
+        }
+
+        RiskContribution.RiskContributionBuilder contribution = RiskContribution.builder();
+        int score = 0;
+        if (!injection.getMatched().isEmpty()) {
+            score += 40;
+            contribution.reason("Prompt injection detected: " + injection.getMatched().size() + " pattern(s)");
+        }
+        // Input that exhausts a rule's step budget is itself a sign of a ReDoS attempt
+        if (!injection.getTimedOut().isEmpty()) {
+            score += 20;
+            contribution.reason("Injection rule evaluation exceeded step budget: " + injection.getTimedOut().size() + " rule(s)");
+        }
+        return contribution.score(score).build();
+    }
+}
@@ -0,0 +1,25 @@
+package com.trustai.service.risk;
+
+import org.springframework.stereotype.Component;
+
+@Component
+public class KeywordSignal implements RiskSignal {
+
+    @Override
+    public String name() {
+        return "keywords";
+    }
+
+    @Override
+    public int cost() {
+        return 2;
+    }
+
+    @Override
+    public RiskContribution evaluate(RiskContext context) {
+        if (context.getFeatures().getRiskKeywordHits() > 0) {
+            return RiskContribution.of(30, "Suspicious keywords detected");
+        }
+        return RiskContribution.NONE;
+    }
+}
@@ -0,0 +1,29 @@
+package com.trustai.service.risk;
+
+import org.springframework.stereotype.Component;
+
+@Component
+public class LengthSignal implements RiskSignal {
+
+    @Override
+    public String name() {
+        return "length";
+    }
+
+    @Override
+    public int cost() {
+        return 1;
+    }
+
+    @Override
+    public RiskContribution evaluate(RiskContext context) {
+        int length = context.getFeatures().getLength();
+        if (length > 10000) {
+            return RiskContribution.of(20, "Very long prompt (>10k chars)");
+        }
+        if (length > 5000) {
+            return RiskContribution.of(10, "Long prompt (>5k chars)");
+        }
+        return RiskContribution.NONE;
+    }
+}
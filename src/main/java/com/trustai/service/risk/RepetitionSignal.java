@@ -0,0 +1,47 @@
+package com.trustai.service.risk;
+
+import com.trustai.service.prompt.RepetitionDetector;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Flags prompts padded with repeated text (potential token abuse). Runs on the signal pool with
+ * injection when parallel evaluation is on, so padded prompts are scored while injection scans.
+ */
+@Component
+public class RepetitionSignal implements RiskSignal {
+
+    @Value("${app.security.risk.repetition.min-ratio:0.5}")
+    private double minRepeatRatio;
+
+    @Override
+    public String name() {
+        return "repetition";
+    }
+
+    @Override
+    public int cost() {
+        return 3;
+    }
+
+    @Override
+    public boolean parallel() {
+        return true;
+    }
+
+    @Override
+    public String configuration() {
+        return "min-ratio=" + minRepeatRatio;
+    }
+
+    @Override
+    public RiskContribution evaluate(RiskContext context) {
+        RepetitionDetector.Stats repetition = context.getFeatures().getRepetition();
+        if (repetition.getLength() < 100 || repetition.getRepeatRatio() < minRepeatRatio) {
+            return RiskContribution.NONE;
+        }
+        return RiskContribution.of(25, String.format(
+                "Repeated patterns detected (potential token abuse): %d%% repeated, longest span %d chars",
+                Math.round(repetition.getRepeatRatio() * 100), repetition.getLongestRepeatedSpan()));
+    }
+}
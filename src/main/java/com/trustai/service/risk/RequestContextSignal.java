@@ -0,0 +1,41 @@
+package com.trustai.service.risk;
+
+import org.springframework.stereotype.Component;
+
+/**
+ * Scores request attributes set by earlier filters rather than the prompt itself
+ */
+@Component
+public class RequestContextSignal implements RiskSignal {
+
+    @Override
+    public String name() {
+        return "context";
+    }
+
+    @Override
+    public int cost() {
+        return 0;
+    }
+
+    @Override
+    public RiskContribution evaluate(RiskContext context) {
+        boolean suspiciousIp = context.flag("suspicious_ip");
+        boolean highRequestRate = context.flag("high_request_rate");
+        if (!suspiciousIp && !highRequestRate) {
+            return RiskContribution.NONE;
+        }
+
+        RiskContribution.RiskContributionBuilder contribution = RiskContribution.builder();
+        int score = 0;
+        if (suspiciousIp) {
+            score += 15;
+            contribution.reason("Suspicious IP address");
+        }
+        if (highRequestRate) {
+            score += 10;
+            contribution.reason("High request rate");
+        }
+        return contribution.score(score).build();
+    }
+}
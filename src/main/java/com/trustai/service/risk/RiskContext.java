@@ -0,0 +1,27 @@
+package com.trustai.service.risk;
+
+import com.trustai.service.prompt.PromptFeatures;
+import lombok.Builder;
+import lombok.Getter;
+
+import java.util.Map;
+
+/**
+ * Input shared by all risk signals of one request
+ */
+@Getter
+@Builder
+public class RiskContext {
+
+    private final String prompt;
+
+    /** Extracted once per request and shared by all signals */
+    private final PromptFeatures features;
+
+    /** Request attributes such as {@code user_plan} or {@code suspicious_ip}, may be null */
+    private final Map<String, Object> attributes;
+
+    public boolean flag(String key) {
+        return attributes != null && Boolean.TRUE.equals(attributes.get(key));
+    }
+}
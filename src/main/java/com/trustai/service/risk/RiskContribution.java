@@ -0,0 +1,30 @@
+package com.trustai.service.risk;
+
+import lombok.Builder;
+import lombok.Getter;
+import lombok.Singular;
+
+import java.util.List;
+
+/**
+ * Score and reasons reported by a single risk signal
+ */
+@Getter
+@Builder
+public class RiskContribution {
+
+    public static final RiskContribution NONE = RiskContribution.builder().build();
+
+    private final int score;
+
+    @Singular
+    private final List<String> reasons;
+
+    public static RiskContribution of(int score, String reason) {
+        return RiskContribution.builder().score(score).reason(reason).build();
+    }
+
+    public boolean isHit() {
+        return score > 0;
+    }
+}
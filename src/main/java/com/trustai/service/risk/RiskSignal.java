@@ -0,0 +1,38 @@
+package com.trustai.service.risk;
+
+/**
+ * One independent check contributing to a prompt's risk score.
+ * <p>
+ * Signals are picked up as Spring beans and evaluated cheapest first, so that evaluation can stop
+ * as soon as the score reaches its cap without paying for the expensive checks.
+ */
+public interface RiskSignal {
+
+    /**
+     * Stable name used in metric tags and logs
+     */
+    String name();
+
+    /**
+     * Relative evaluation cost; signals run in ascending order, ties broken by name
+     */
+    int cost();
+
+    /**
+     * Whether the signal is expensive enough to be worth running on the signal pool when
+     * parallel evaluation is enabled. Such signals must be thread-safe.
+     */
+    default boolean parallel() {
+        return false;
+    }
+
+    /**
+     * Settings that change the signal's output for a given prompt, folded into the cache key of
+     * cached verdicts
+     */
+    default String configuration() {
+        return "";
+    }
+
+    RiskContribution evaluate(RiskContext context);
+}
@@ -0,0 +1,19 @@
+package com.trustai.util;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+/**
+ * Resolves the client IP of a request. Forwarded headers are never read here: the container only
+ * applies {@code X-Forwarded-For} to the remote address when the direct peer is one of the
+ * {@code server.tomcat.remoteip.internal-proxies}, so a client cannot choose its own IP.
+ */
+public final class ClientIpResolver {
+
+    private ClientIpResolver() {
+    }
+
+    public static String resolve(HttpServletRequest request) {
+        String ip = request.getRemoteAddr();
+        return ip != null ? ip : "unknown";
+    }
+}
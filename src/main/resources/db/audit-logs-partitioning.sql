@@ -0,0 +1,172 @@
+-- Range-partitions audit_logs by month. Runs on every startup before Hibernate and is idempotent.
+-- Statements are separated by "^;" because the PL/pgSQL bodies contain semicolons.
+
+-- Rows of the month already in audit_logs_default would make the CREATE fail, so they are moved into the new partition
+CREATE OR REPLACE FUNCTION audit_logs_ensure_partition(month_start date) RETURNS boolean
+LANGUAGE plpgsql AS $$
+DECLARE
+    partition_name text := format('audit_logs_p%s', to_char(month_start, 'YYYYMM'));
+    month_end date := (month_start + interval '1 month')::date;
+    stray boolean;
+BEGIN
+    IF to_regclass(partition_name) IS NOT NULL THEN
+        RETURN false;
+    END IF;
+    stray := to_regclass('audit_logs_default') IS NOT NULL
+        AND EXISTS (SELECT 1 FROM audit_logs_default WHERE "timestamp" >= month_start AND "timestamp" < month_end);
+    IF stray THEN
+        CREATE TEMP TABLE audit_logs_rehomed (LIKE audit_logs);
+        WITH moved AS (
+            DELETE FROM audit_logs_default WHERE "timestamp" >= month_start AND "timestamp" < month_end RETURNING *
+        )
+        INSERT INTO audit_logs_rehomed SELECT * FROM moved;
+    END IF;
+    EXECUTE format('CREATE TABLE %I PARTITION OF audit_logs FOR VALUES FROM (%L) TO (%L)',
+                   partition_name, month_start, month_end);
+    IF stray THEN
+        INSERT INTO audit_logs SELECT * FROM audit_logs_rehomed;
+        DROP TABLE audit_logs_rehomed;
+    END IF;
+    RETURN true;
+END
+$$^;
+
+DO $$
+DECLARE
+    unpartitioned boolean;
+    month date;
+BEGIN
+    -- Instances starting together run this one at a time
+    PERFORM pg_advisory_xact_lock(hashtext('audit_logs_partitioning'));
+
+    unpartitioned := to_regclass('audit_logs') IS NOT NULL
+        AND (SELECT relkind FROM pg_class WHERE oid = to_regclass('audit_logs')) = 'r';
+    IF unpartitioned THEN
+        -- Table created by Hibernate before partitioning: move it aside, its rows are copied below
+        ALTER TABLE audit_logs RENAME TO audit_logs_unpartitioned;
+        ALTER TABLE audit_logs_unpartitioned RENAME CONSTRAINT audit_logs_pkey TO audit_logs_unpartitioned_pkey;
+        ALTER TABLE audit_logs_unpartitioned ADD COLUMN IF NOT EXISTS event_id varchar(36);
+        ALTER TABLE audit_logs_unpartitioned DROP CONSTRAINT IF EXISTS idx_audit_event_id;
+        DROP INDEX IF EXISTS idx_user_id;
+        DROP INDEX IF EXISTS idx_timestamp;
+        DROP INDEX IF EXISTS idx_risk_score;
+        DROP INDEX IF EXISTS idx_audit_event_id;
+    END IF;
+
+    IF to_regclass('audit_logs') IS NULL THEN
+        -- The partition key must be part of every unique constraint
+        CREATE TABLE audit_logs (
+            id bigserial NOT NULL,
+            event_id varchar(36),
+            user_id varchar(255) NOT NULL,
+            endpoint varchar(255) NOT NULL,
+            method varchar(255) NOT NULL,
+            prompt text,
+            response text,
+            risk_score integer NOT NULL,
+            risk_level varchar(255) NOT NULL,
+            blocked boolean NOT NULL,
+            block_reason text,
+            sanitized_prompt text,
+            ip_address varchar(255) NOT NULL,
+            user_agent varchar(255) NOT NULL,
+            metadata jsonb,
+            "timestamp" timestamp(6) NOT NULL,
+            PRIMARY KEY (id, "timestamp")
+        ) PARTITION BY RANGE ("timestamp");
+        -- Catches rows outside the monthly partitions, e.g. late replays of old events
+        CREATE TABLE audit_logs_default PARTITION OF audit_logs DEFAULT;
+        CREATE INDEX idx_timestamp ON audit_logs ("timestamp");
+        CREATE INDEX idx_risk_score ON audit_logs (risk_score);
+        CREATE UNIQUE INDEX idx_audit_event_id ON audit_logs (event_id, "timestamp");
+    END IF;
+
+    -- Later months are created ahead of time by AuditPartitionManager
+    PERFORM audit_logs_ensure_partition(date_trunc('month', localtimestamp)::date);
+    PERFORM audit_logs_ensure_partition((date_trunc('month', localtimestamp) + interval '1 month')::date);
+
+    IF unpartitioned THEN
+        FOR month IN SELECT DISTINCT date_trunc('month', "timestamp")::date FROM audit_logs_unpartitioned LOOP
+            PERFORM audit_logs_ensure_partition(month);
+        END LOOP;
+        INSERT INTO audit_logs (id, event_id, user_id, endpoint, method, prompt, response, risk_score, risk_level,
+                                blocked, block_reason, sanitized_prompt, ip_address, user_agent, metadata, "timestamp")
+        SELECT id, event_id, user_id, endpoint, method, prompt, response, risk_score, risk_level,
+               blocked, block_reason, sanitized_prompt, ip_address, user_agent, metadata, "timestamp"
+        FROM audit_logs_unpartitioned;
+        PERFORM setval(pg_get_serial_sequence('audit_logs', 'id'), COALESCE((SELECT max(id) FROM audit_logs), 0) + 1, false);
+        DROP TABLE audit_logs_unpartitioned;
+    END IF;
+END
+$$^;
+
+-- Prompts and responses, stored once per distinct content and referenced from audit_logs by SHA-256.
+-- codec 0 is the UTF-8 text as is, 1 is raw deflate; length is the uncompressed size.
+CREATE TABLE IF NOT EXISTS audit_bodies (
+    hash bytea PRIMARY KEY,
+    codec smallint NOT NULL,
+    length integer NOT NULL,
+    content bytea NOT NULL,
+    last_referenced date NOT NULL
+)^;
+
+CREATE INDEX IF NOT EXISTS idx_audit_bodies_last_referenced ON audit_bodies (last_referenced)^;
+
+-- Rows written before audit_bodies keep their text columns; listings show prompt_preview instead of the prompt
+ALTER TABLE audit_logs
+    ADD COLUMN IF NOT EXISTS prompt_hash bytea,
+    ADD COLUMN IF NOT EXISTS response_hash bytea,
+    ADD COLUMN IF NOT EXISTS sanitized_prompt_hash bytea,
+    ADD COLUMN IF NOT EXISTS prompt_preview varchar(120)^;
+
+-- Hourly rollups behind /api/v1/audit/stats, maintained by the same statement that inserts the rows.
+-- score_bucket is risk_score / 10, with 100 counted in bucket 9.
+DO $$
+BEGIN
+    PERFORM pg_advisory_xact_lock(hashtext('audit_logs_partitioning'));
+    IF to_regclass('audit_stats_hourly') IS NULL THEN
+        CREATE TABLE audit_stats_hourly (
+            user_id varchar(255) NOT NULL,
+            hour timestamp NOT NULL,
+            risk_level varchar(16) NOT NULL,
+            blocked boolean NOT NULL,
+            score_bucket smallint NOT NULL,
+            requests bigint NOT NULL,
+            risk_score_sum bigint NOT NULL,
+            PRIMARY KEY (user_id, hour, risk_level, blocked, score_bucket)
+        );
+        -- Rows written before the rollups existed, counted once
+        INSERT INTO audit_stats_hourly
+        SELECT user_id, date_trunc('hour', "timestamp"), risk_level, blocked, least(risk_score / 10, 9),
+               count(*), sum(risk_score)
+        FROM audit_logs
+        GROUP BY 1, 2, 3, 4, 5;
+    END IF;
+END
+$$^;
+
+-- Seek pagination of /api/v1/audit/logs: one user's rows newest first, optionally by risk level or
+-- blocked flag. They lead with user_id, so a plain user_id index is redundant.
+DROP INDEX IF EXISTS idx_user_id^;
+CREATE INDEX IF NOT EXISTS idx_audit_user_time ON audit_logs (user_id, "timestamp" DESC, id DESC)^;
+CREATE INDEX IF NOT EXISTS idx_audit_user_risk_time ON audit_logs (user_id, risk_level, "timestamp" DESC, id DESC)^;
+CREATE INDEX IF NOT EXISTS idx_audit_user_blocked_time ON audit_logs (user_id, blocked, "timestamp" DESC, id DESC)^;
+
+-- Full-text search of prompts behind /api/v1/audit/search. search_vector is written by JdbcAuditSink with the
+-- 'english' configuration. When the column is added, rows that still have their prompts inline are indexed;
+-- rows whose prompts are only in audit_bodies are compressed there and stay unsearchable.
+DO $$
+BEGIN
+    PERFORM pg_advisory_xact_lock(hashtext('audit_logs_partitioning'));
+    IF NOT EXISTS (SELECT 1 FROM information_schema.columns
+                   WHERE table_name = 'audit_logs' AND column_name = 'search_vector') THEN
+        ALTER TABLE audit_logs ADD COLUMN search_vector tsvector;
+        UPDATE audit_logs
+        SET search_vector = to_tsvector('english', concat_ws(E'\n', prompt,
+                NULLIF(sanitized_prompt, prompt)))
+        WHERE prompt IS NOT NULL OR sanitized_prompt IS NOT NULL;
+    END IF;
+END
+$$^;
+
+CREATE INDEX IF NOT EXISTS idx_audit_search ON audit_logs USING gin (search_vector)^;
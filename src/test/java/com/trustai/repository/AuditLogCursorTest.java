@@ -0,0 +1,25 @@
+package com.trustai.repository;
+
+import com.trustai.exception.CustomException;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class AuditLogCursorTest {
+
+    @Test
+    void cursorSurvivesEncodingWithMicroseconds() {
+        AuditLogCursor cursor = new AuditLogCursor(LocalDateTime.of(2024, 5, 1, 12, 30, 0, 123_456_000), 42);
+
+        assertEquals(cursor, AuditLogCursor.decode(cursor.encode()));
+    }
+
+    @Test
+    void tamperedCursorIsRejected() {
+        assertThrows(CustomException.class, () -> AuditLogCursor.decode("not a cursor"));
+        assertThrows(CustomException.class, () -> AuditLogCursor.decode("MjAyNC0wNS0wMQ"));
+    }
+}
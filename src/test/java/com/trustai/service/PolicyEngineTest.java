@@ -0,0 +1,65 @@
+package com.trustai.service;
+
+import com.trustai.config.PolicyProperties;
+import com.trustai.model.dto.request.SecurePromptRequest;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PolicyEngineTest {
+
+    private PolicyEngine engine;
+
+    @BeforeEach
+    void setUp() {
+        PolicyProperties properties = new PolicyProperties();
+        properties.getPolicies().put("restrictive", policy(false, 20, List.of()));
+        properties.getPolicies().put("moderate", policy(false, 8000, List.of("OpenAI.com", "anthropic.com")));
+        properties.getPolicies().put("permissive", policy(true, null, List.of("*")));
+        engine = new PolicyEngine(properties);
+        engine.init();
+    }
+
+    @Test
+    void allowedRequestHasNoViolations() {
+        PolicyEngine.PolicyResult result = engine.evaluate(request("hello", "gpt-4.openai.com", "moderate"));
+        assertTrue(result.isAllowed());
+        assertTrue(result.getViolations().isEmpty());
+        assertEquals("moderate", result.getPolicy());
+    }
+
+    @Test
+    void matchesDomainsAnywhereInTheModelIgnoringCase() {
+        assertTrue(engine.evaluate(request("hi", "claude@ANTHROPIC.COM/v1", "moderate")).isAllowed());
+        assertFalse(engine.evaluate(request("hi", "mistral.ai", "moderate")).isAllowed());
+        assertTrue(engine.evaluate(request("hi", "mistral.ai", "permissive")).isAllowed());
+        assertTrue(engine.evaluate(request("hi", null, "restrictive")).isAllowed());
+    }
+
+    @Test
+    void reportsEveryViolationAndFallsBackToDefaultPolicy() {
+        PolicyEngine.PolicyResult result = engine.evaluate(request("x".repeat(21), "gpt-4", "unknown"));
+        assertFalse(result.isAllowed());
+        assertEquals("unknown", result.getPolicy());
+        assertEquals(List.of("Prompt length (21) exceeds maximum (20)",
+                "External API access not allowed for model: gpt-4"), result.getViolations());
+        assertEquals(String.join("; ", result.getViolations()), result.getReason());
+    }
+
+    private static PolicyProperties.Policy policy(Boolean allowExternal, Integer maxLength, List<String> domains) {
+        PolicyProperties.Policy policy = new PolicyProperties.Policy();
+        policy.setAllowExternalApis(allowExternal);
+        policy.setMaxPromptLength(maxLength);
+        policy.setAllowedDomains(domains);
+        return policy;
+    }
+
+    private static SecurePromptRequest request(String prompt, String model, String policy) {
+        return SecurePromptRequest.builder().prompt(prompt).model(model).policy(policy).build();
+    }
+}
@@ -0,0 +1,72 @@
+package com.trustai.service;
+
+import com.trustai.config.RateLimitProperties;
+import com.trustai.model.entity.User;
+import com.trustai.service.ratelimit.LocalRateLimitBackend;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RateLimitServiceTest {
+
+    private RateLimitService service;
+
+    @BeforeEach
+    void setUp() {
+        RateLimitProperties properties = new RateLimitProperties();
+        properties.setLimits(Map.of("free", 10, "premium", 100));
+        properties.setIp(new RateLimitProperties.DimensionLimit(true, 15));
+        properties.getCost().setCharsPerUnit(1000);
+        properties.getCost().setMaxUnits(5);
+        LocalRateLimitBackend backend = new LocalRateLimitBackend(properties, new SimpleMeterRegistry());
+        backend.init();
+        service = new RateLimitService(properties, backend);
+    }
+
+    @Test
+    void chargesByPromptSizeAndReportsTheTightestDimension() {
+        User user = user(1L, User.Plan.FREE, null);
+        RateLimitService.ConsumptionProbe probe = service.tryConsume(user, "10.0.0.1", "POST /x", 2500);
+        assertTrue(probe.isConsumed());
+        assertEquals(10 - 3, probe.getRemaining());
+        assertTrue(probe.getSecondsUntilReset() > 0 && probe.getSecondsUntilReset() <= 60);
+
+        // Capped at max-units
+        assertEquals(7 - 5, service.tryConsume(user, "10.0.0.1", "POST /x", 50_000).getRemaining());
+    }
+
+    @Test
+    void rejectedDimensionRefundsTheOthers() {
+        User premium = user(2L, User.Plan.PREMIUM, null);
+        for (int i = 0; i < 15; i++) {
+            assertTrue(service.tryConsume(premium, "10.0.0.2", "POST /x", 0).isConsumed());
+        }
+        // The shared IP is exhausted, so the user's own bucket must not be charged
+        assertFalse(service.tryConsume(premium, "10.0.0.2", "POST /x", 0).isConsumed());
+        RateLimitService.ConsumptionProbe elsewhere = service.tryConsume(premium, "10.0.0.3", "POST /x", 0);
+        assertTrue(elsewhere.isConsumed());
+        assertEquals(14, elsewhere.getRemaining());
+        assertEquals(100 - 17, service.tryConsumeAndReturnRemaining(premium).getRemaining());
+    }
+
+    @Test
+    void planChangeGetsANewBucket() {
+        User user = user(3L, User.Plan.FREE, null);
+        for (int i = 0; i < 10; i++) {
+            service.tryConsumeAndReturnRemaining(user);
+        }
+        assertFalse(service.tryConsumeAndReturnRemaining(user).isConsumed());
+        user.setPlan(User.Plan.PREMIUM);
+        assertEquals(99, service.tryConsumeAndReturnRemaining(user).getRemaining());
+    }
+
+    private static User user(Long id, User.Plan plan, String organization) {
+        return User.builder().id(id).email("u" + id + "@example.com").plan(plan).organization(organization).build();
+    }
+}
@@ -0,0 +1,119 @@
+package com.trustai.service;
+
+import com.trustai.model.entity.AuditLog;
+import com.trustai.service.risk.RiskContext;
+import com.trustai.service.risk.RiskContribution;
+import com.trustai.service.risk.RiskSignal;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RiskScoreCalculatorTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private RiskScoreCalculator calculator;
+
+    @AfterEach
+    void shutdown() {
+        if (calculator != null) {
+            calculator.shutdown();
+        }
+    }
+
+    @Test
+    void runsSignalsCheapestFirstAndSumsContributions() {
+        List<String> order = new ArrayList<>();
+        calculator = calculator(false, 250,
+                signal("b", 20, false, 10, order),
+                signal("a", 10, false, 15, order),
+                signal("c", 30, false, 0, order));
+
+        RiskScoreCalculator.RiskAssessment assessment = calculator.calculateRisk("prompt", Map.of());
+
+        assertEquals(List.of("a", "b", "c"), order);
+        assertEquals(25, assessment.getScore());
+        assertEquals(AuditLog.RiskLevel.LOW, assessment.getLevel());
+        assertEquals(List.of("a", "b"), assessment.getReasons());
+        assertEquals(2.0, registry.get("risk.signal.hits").counters().stream().mapToDouble(c -> c.count()).sum());
+    }
+
+    @Test
+    void stopsOnceTheScoreIsCapped() {
+        List<String> order = new ArrayList<>();
+        calculator = calculator(false, 250,
+                signal("cheap", 1, false, 60, order),
+                signal("medium", 2, false, 50, order),
+                signal("expensive", 3, false, 40, order));
+
+        RiskScoreCalculator.RiskAssessment assessment = calculator.calculateRisk("prompt", null);
+
+        assertEquals(List.of("cheap", "medium"), order);
+        assertEquals(100, assessment.getScore());
+        assertEquals(AuditLog.RiskLevel.CRITICAL, assessment.getLevel());
+        assertEquals(1.0, registry.get("risk.signal.skipped").tag("signal", "expensive").counter().count());
+    }
+
+    @Test
+    void parallelSignalMissingTheDeadlineFailsClosed() {
+        AtomicInteger started = new AtomicInteger();
+        RiskSignal slow = new RiskSignal() {
+            public String name() { return "slow"; }
+            public int cost() { return 100; }
+            public boolean parallel() { return true; }
+            public RiskContribution evaluate(RiskContext context) {
+                started.incrementAndGet();
+                try {
+                    Thread.sleep(5_000);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return RiskContribution.of(50, "slow");
+            }
+        };
+        calculator = calculator(true, 50, signal("fast", 1, false, 10, new ArrayList<>()), slow);
+
+        long start = System.nanoTime();
+        RiskScoreCalculator.RiskAssessment assessment = calculator.calculateRisk("prompt", Map.of());
+
+        assertTrue(System.nanoTime() - start < 2_000_000_000L);
+        assertEquals(60, assessment.getScore());
+        assertEquals(AuditLog.RiskLevel.HIGH, assessment.getLevel());
+        assertTrue(assessment.isTimedOut());
+        assertTrue(assessment.getReasons().contains("Risk signal slow timed out after 50 ms"));
+        assertEquals(1.0, registry.get("risk.signal.timeouts").tag("signal", "slow").counter().count());
+    }
+
+    private RiskScoreCalculator calculator(boolean parallel, long deadlineMs, RiskSignal... signals) {
+        RiskScoreCalculator calculator = new RiskScoreCalculator(List.of(signals), registry);
+        ReflectionTestUtils.setField(calculator, "lowThreshold", 30);
+        ReflectionTestUtils.setField(calculator, "mediumThreshold", 60);
+        ReflectionTestUtils.setField(calculator, "highThreshold", 80);
+        ReflectionTestUtils.setField(calculator, "parallel", parallel);
+        ReflectionTestUtils.setField(calculator, "deadlineMs", deadlineMs);
+        ReflectionTestUtils.setField(calculator, "timeoutFloor", 60);
+        ReflectionTestUtils.setField(calculator, "threads", 2);
+        calculator.init();
+        return calculator;
+    }
+
+    private static RiskSignal signal(String name, int cost, boolean parallel, int score, List<String> order) {
+        return new RiskSignal() {
+            public String name() { return name; }
+            public int cost() { return cost; }
+            public boolean parallel() { return parallel; }
+            public RiskContribution evaluate(RiskContext context) {
+                order.add(name);
+                return score > 0 ? RiskContribution.of(score, name) : RiskContribution.NONE;
+            }
+        };
+    }
+}
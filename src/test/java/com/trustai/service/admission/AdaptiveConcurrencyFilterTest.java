@@ -0,0 +1,103 @@
+package com.trustai.service.admission;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.trustai.config.AdaptiveConcurrencyProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AdaptiveConcurrencyFilterTest {
+
+    private static final int WORKERS = 8;
+    private static final long SERVICE_MILLIS = 5;
+    private static final int CLIENTS = 48;
+
+    /**
+     * Load scenario: six times more concurrent clients than the downstream has workers, each retrying
+     * shortly after a 503. Without a limit every request would queue for about CLIENTS / WORKERS
+     * service times; with it the limit settles near the worker count and queueing stays bounded
+     * while the workers are kept busy. Runs for six seconds and measures the last two.
+     */
+    @Test
+    void limitConvergesAndKeepsQueueingBoundedPastSaturation() throws Exception {
+        AdaptiveConcurrencyProperties properties = new AdaptiveConcurrencyProperties();
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        AdaptiveConcurrencyFilter filter = new AdaptiveConcurrencyFilter(properties, registry,
+                new ObjectMapper().findAndRegisterModules());
+        filter.init();
+
+        Semaphore workers = new Semaphore(WORKERS, true);
+        FilterChain downstream = (request, response) -> {
+            workers.acquireUninterruptibly();
+            try {
+                Thread.sleep(SERVICE_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                workers.release();
+            }
+        };
+
+        long start = System.nanoTime();
+        long settledAt = start + 2_000_000_000L;
+        long measureFrom = start + 4_000_000_000L;
+        long end = start + 6_000_000_000L;
+        List<Long> latencies = Collections.synchronizedList(new ArrayList<>());
+        AtomicInteger rejected = new AtomicInteger();
+        CountDownLatch done = new CountDownLatch(CLIENTS);
+        for (int c = 0; c < CLIENTS; c++) {
+            Thread.ofPlatform().start(() -> {
+                try {
+                    while (System.nanoTime() < end) {
+                        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/v1/secure-prompt");
+                        MockHttpServletResponse response = new MockHttpServletResponse();
+                        long sent = System.nanoTime();
+                        filter.doFilter(request, response, downstream);
+                        long latency = System.nanoTime() - sent;
+                        if (response.getStatus() == 503) {
+                            rejected.incrementAndGet();
+                            Thread.sleep(SERVICE_MILLIS);
+                        } else if (sent >= measureFrom) {
+                            latencies.add(latency);
+                        }
+                    }
+                } catch (Exception e) {
+                    throw new IllegalStateException(e);
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+        List<Integer> limits = new ArrayList<>();
+        while (System.nanoTime() < end) {
+            Thread.sleep(250);
+            if (System.nanoTime() >= settledAt) {
+                limits.add((int) registry.get("adaptive.concurrency.limit").tag("group", "secure-prompt").gauge().value());
+            }
+        }
+        done.await();
+
+        List<Long> sorted = new ArrayList<>(latencies);
+        Collections.sort(sorted);
+        long p99Millis = sorted.get((int) (sorted.size() * 0.99)) / 1_000_000;
+        long capacity = WORKERS * (end - measureFrom) / 1_000_000 / SERVICE_MILLIS;
+        String summary = "limits " + limits + ", p99 " + p99Millis + " ms, " + sorted.size() + " admitted, "
+                + rejected + " rejected";
+
+        assertTrue(limits.stream().allMatch(limit -> limit <= 4 * WORKERS), summary);
+        assertTrue(p99Millis < CLIENTS / WORKERS * SERVICE_MILLIS, summary);
+        assertTrue(sorted.size() > capacity / 2, summary);
+        assertTrue(rejected.get() > 0, summary);
+    }
+}
@@ -0,0 +1,91 @@
+package com.trustai.service.admission;
+
+import com.trustai.config.AdmissionProperties;
+import com.trustai.exception.ServiceOverloadedException;
+import com.trustai.model.entity.User;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class AdmissionGateTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    private AdmissionGate gate(int maxConcurrent, int queueCapacity, long maxWaitMs) {
+        AdmissionProperties properties = new AdmissionProperties();
+        properties.setMaxConcurrent(maxConcurrent);
+        properties.setQueueCapacity(queueCapacity);
+        properties.setPlans(new EnumMap<>(Map.of(
+                User.Plan.FREE, new AdmissionProperties.PlanLimits(1, maxWaitMs, 1),
+                User.Plan.PREMIUM, new AdmissionProperties.PlanLimits(maxConcurrent, maxWaitMs, 4),
+                User.Plan.ENTERPRISE, new AdmissionProperties.PlanLimits(maxConcurrent, maxWaitMs, 8))));
+        AdmissionGate gate = new AdmissionGate(properties, registry);
+        gate.init();
+        return gate;
+    }
+
+    @Test
+    void bulkheadShedsRequestsThatWaitPastTheirBudget() {
+        AdmissionGate gate = gate(4, 10, 20);
+        AdmissionGate.Permit running = gate.acquire(User.Plan.FREE);
+
+        assertThrows(ServiceOverloadedException.class, () -> gate.acquire(User.Plan.FREE));
+        // Other plans are not held back by the full FREE bulkhead
+        gate.acquire(User.Plan.ENTERPRISE).close();
+
+        running.close();
+        gate.acquire(User.Plan.FREE).close();
+        assertEquals(1, registry.get("admission.shed").tags("plan", "free", "reason", "timeout").counter().count());
+    }
+
+    @Test
+    void releasedSlotGoesToWaitingRequest() throws Exception {
+        AdmissionGate gate = gate(1, 10, 5_000);
+        AdmissionGate.Permit running = gate.acquire(User.Plan.PREMIUM);
+
+        CompletableFuture<AdmissionGate.Permit> waiting = CompletableFuture.supplyAsync(() -> gate.acquire(User.Plan.PREMIUM));
+        awaitQueueDepth("premium", 1);
+        running.close();
+
+        waiting.get(5, TimeUnit.SECONDS).close();
+        assertEquals(0, registry.get("admission.active").tag("plan", "premium").gauge().value());
+    }
+
+    @Test
+    void higherPlanDisplacesLowestWaiterWhenQueueIsFull() throws Exception {
+        AdmissionGate gate = gate(1, 1, 5_000);
+        AdmissionGate.Permit running = gate.acquire(User.Plan.ENTERPRISE);
+
+        CompletableFuture<AdmissionGate.Permit> free = CompletableFuture.supplyAsync(() -> gate.acquire(User.Plan.FREE));
+        awaitQueueDepth("free", 1);
+        CompletableFuture<AdmissionGate.Permit> enterprise = CompletableFuture.supplyAsync(() -> gate.acquire(User.Plan.ENTERPRISE));
+
+        ExecutionException shed = assertThrows(ExecutionException.class, () -> free.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(ServiceOverloadedException.class, shed.getCause());
+        // A FREE request cannot displace anyone and is rejected outright
+        awaitQueueDepth("enterprise", 1);
+        assertThrows(ServiceOverloadedException.class, () -> gate.acquire(User.Plan.FREE));
+
+        running.close();
+        enterprise.get(5, TimeUnit.SECONDS).close();
+    }
+
+    private void awaitQueueDepth(String plan, int depth) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (registry.get("admission.queue.depth").tag("plan", plan).gauge().value() != depth) {
+            if (System.nanoTime() > deadline) {
+                throw new AssertionError("Queue of " + plan + " never reached " + depth);
+            }
+            Thread.sleep(1);
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.trustai.service.admission;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class GradientLimitTest {
+
+    private static final long MILLIS = 1_000_000L;
+
+    private long now;
+
+    @Test
+    void rejectsOnceLimitIsInFlight() {
+        // Starts out probing at half the initial limit
+        GradientLimit limit = new GradientLimit(4, 1, 10, 0.2, 100, 1.5);
+
+        int first = limit.tryAcquire();
+        assertEquals(1, first);
+        assertEquals(2, limit.tryAcquire());
+        assertEquals(-1, limit.tryAcquire());
+
+        limit.release(first, 0, now);
+        assertEquals(2, limit.tryAcquire());
+    }
+
+    @Test
+    void growsWhileLatencyIsStableAndShrinksWhenItRises() {
+        GradientLimit limit = new GradientLimit(20, 4, 200, 0.2, 1000, 1.5);
+        for (int i = 0; i < 200; i++) {
+            release(limit, acquireAll(limit), 10 * MILLIS);
+        }
+        int grown = limit.getLimit();
+        assertTrue(grown > 20, "limit should grow at stable latency, was " + grown);
+
+        for (int i = 0; i < 20; i++) {
+            release(limit, acquireAll(limit), 100 * MILLIS);
+        }
+        assertTrue(limit.getLimit() < grown / 2, "limit should shrink when latency rises, was " + limit.getLimit());
+        assertTrue(limit.getLimit() >= 4);
+    }
+
+    @Test
+    void ignoresSamplesWhenMostOfTheLimitIsUnused() {
+        GradientLimit limit = new GradientLimit(20, 4, 200, 0.2, 100, 1.5);
+        for (int i = 0; i < 200; i++) {
+            release(limit, limit.tryAcquire(), 10 * MILLIS);
+        }
+        assertEquals(20, limit.getLimit());
+    }
+
+    /**
+     * A downstream with 8 workers: past 8 in flight every request queues. Saturated from the first
+     * request on, the limit still settles near the worker count instead of following the queue up.
+     */
+    @Test
+    void convergesNearCapacityUnderSustainedSaturation() {
+        GradientLimit limit = new GradientLimit(20, 4, 200, 0.2, 100, 1.5);
+        int highest = 0;
+        for (int i = 0; i < 5000; i++) {
+            int inFlight = acquireAll(limit);
+            release(limit, inFlight, 10 * MILLIS * Math.max(8, inFlight) / 8);
+            if (i >= 1000) {
+                highest = Math.max(highest, limit.getLimit());
+            }
+        }
+        assertTrue(limit.getLimit() >= 8, "limit should not starve the workers, was " + limit.getLimit());
+        assertTrue(highest <= 24, "limit should stay near the 8 workers, reached " + highest);
+    }
+
+    /**
+     * Completes a request admitted {@code rttNanos} ago
+     */
+    private void release(GradientLimit limit, int inFlightAtStart, long rttNanos) {
+        now += rttNanos;
+        limit.release(inFlightAtStart, rttNanos, now);
+    }
+
+    /**
+     * Fills the limit and releases all but one slot, returning the in-flight count of the last
+     */
+    private int acquireAll(GradientLimit limit) {
+        int inFlight = limit.tryAcquire();
+        int last = inFlight;
+        while ((inFlight = limit.tryAcquire()) > 0) {
+            last = inFlight;
+        }
+        for (int i = 1; i < last; i++) {
+            limit.release(i, 0, now);
+        }
+        return last;
+    }
+}
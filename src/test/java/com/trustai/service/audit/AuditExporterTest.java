@@ -0,0 +1,28 @@
+package com.trustai.service.audit;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.StringWriter;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class AuditExporterTest {
+
+    @Test
+    void csvFieldsAreQuotedOnlyWhenNeeded() throws Exception {
+        StringWriter out = new StringWriter();
+
+        AuditExporter.writeCsvRow(out, new String[]{"plain", "a,b", "say \"hi\"", "two\nlines", null, ""});
+
+        assertEquals("plain,\"a,b\",\"say \"\"hi\"\"\",\"two\nlines\",,\r\n", out.toString());
+    }
+
+    @Test
+    void spreadsheetFormulasAreDefused() throws Exception {
+        StringWriter out = new StringWriter();
+
+        AuditExporter.writeCsvField(out, "=HYPERLINK(\"http://evil\")");
+
+        assertEquals("\"'=HYPERLINK(\"\"http://evil\"\")\"", out.toString());
+    }
+}
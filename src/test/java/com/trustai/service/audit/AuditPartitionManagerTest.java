@@ -0,0 +1,28 @@
+package com.trustai.service.audit;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class AuditPartitionManagerTest {
+
+    @Test
+    void createsCurrentAndFollowingMonths() {
+        assertEquals(List.of(LocalDate.of(2024, 11, 1), LocalDate.of(2024, 12, 1), LocalDate.of(2025, 1, 1)),
+                AuditPartitionManager.monthsAhead(LocalDate.of(2024, 11, 17), 2));
+    }
+
+    @Test
+    void expiresOnlyPartitionsEntirelyBeforeCutoff() {
+        List<String> partitions = List.of("audit_logs_p202401", "audit_logs_p202402", "audit_logs_p202403",
+                "audit_logs_default", "audit_logs_p2024");
+
+        assertEquals(List.of("audit_logs_p202401"),
+                AuditPartitionManager.expired(partitions, LocalDate.of(2024, 2, 15)));
+        assertEquals(List.of("audit_logs_p202401", "audit_logs_p202402"),
+                AuditPartitionManager.expired(partitions, LocalDate.of(2024, 3, 1)));
+    }
+}
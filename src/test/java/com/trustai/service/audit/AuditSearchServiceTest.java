@@ -0,0 +1,61 @@
+package com.trustai.service.audit;
+
+import com.trustai.exception.CustomException;
+import com.trustai.model.entity.AuditLog;
+import com.trustai.repository.AuditLogCursor;
+import com.trustai.repository.AuditLogFilter;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AuditSearchServiceTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2024, 5, 1, 0, 0);
+    private static final LocalDateTime END = START.plusDays(7);
+
+    @Test
+    void queryIsBoundAsParameterAndScopedByUserAndTime() {
+        List<Object> args = new ArrayList<>();
+        String sql = AuditSearchService.searchSql(new AuditLogFilter("a@example.com", START, END, null, null),
+                "\"system prompt\" -test", null, 21, args);
+
+        assertTrue(sql.contains("search_vector @@ websearch_to_tsquery('english', ?)"));
+        assertFalse(sql.contains("system prompt"));
+        assertFalse(sql.contains("risk_level ="));
+        assertEquals(List.of("a@example.com", Timestamp.valueOf(START), Timestamp.valueOf(END),
+                "\"system prompt\" -test", 21), args);
+        assertEquals(args.size(), sql.chars().filter(c -> c == '?').count());
+    }
+
+    @Test
+    void filtersAndCursorAddTheirOwnParameters() {
+        List<Object> args = new ArrayList<>();
+        LocalDateTime last = START.plusDays(3);
+        String sql = AuditSearchService.searchSql(
+                new AuditLogFilter("a@example.com", START, END, AuditLog.RiskLevel.HIGH, true),
+                "jailbreak", new AuditLogCursor(last, 42L), 21, args);
+
+        assertEquals(args.size(), sql.chars().filter(c -> c == '?').count());
+        assertEquals(List.of("HIGH", true, Timestamp.valueOf(last), Timestamp.valueOf(last), Timestamp.valueOf(last),
+                42L, 21), args.subList(4, args.size()));
+        assertTrue(sql.endsWith("ORDER BY \"timestamp\" DESC, id DESC LIMIT ?"));
+    }
+
+    @Test
+    void blankAndOverlongQueriesAreRejected() {
+        AuditSearchService service = new AuditSearchService(null);
+        AuditLogFilter filter = new AuditLogFilter("a@example.com", START, END, null, null);
+
+        assertThrows(CustomException.class, () -> service.search(filter, " ", null, 20));
+        assertThrows(CustomException.class, () -> service.search(filter,
+                "x".repeat(AuditSearchService.MAX_QUERY_LENGTH + 1), null, 20));
+    }
+}
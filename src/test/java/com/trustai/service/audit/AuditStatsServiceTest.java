@@ -0,0 +1,55 @@
+package com.trustai.service.audit;
+
+import com.trustai.model.dto.response.AuditStatsResponse;
+import com.trustai.model.entity.AuditLog;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class AuditStatsServiceTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2024, 5, 1, 0, 0);
+    private static final LocalDateTime END = START.plusDays(2);
+
+    @Test
+    void rollupsAreSummedIntoTotalsDistributionAndHistogram() {
+        List<AuditStatsService.Rollup> rollups = List.of(
+                new AuditStatsService.Rollup(START.plusHours(1), AuditLog.RiskLevel.LOW, false, 1, 3, 45),
+                new AuditStatsService.Rollup(START.plusHours(1), AuditLog.RiskLevel.CRITICAL, true, 9, 1, 100),
+                new AuditStatsService.Rollup(START.plusHours(30), AuditLog.RiskLevel.LOW, false, 2, 4, 100));
+
+        AuditStatsResponse stats = AuditStatsService.aggregate(rollups, START, END,
+                AuditStatsService.Granularity.DAY);
+
+        assertEquals(8, stats.getTotalRequests());
+        assertEquals(1, stats.getBlockedRequests());
+        assertEquals(30.6, stats.getAverageRiskScore());
+        assertEquals(new AuditStatsResponse.NamedCount("LOW", 7), stats.getRiskDistribution().get(0));
+        assertEquals(new AuditStatsResponse.ScoreBucket(90, 100, 1), stats.getScoreHistogram().get(9));
+        assertEquals(List.of(
+                new AuditStatsResponse.TimeBucket(START, 4, 1),
+                new AuditStatsResponse.TimeBucket(START.plusDays(1), 4, 0)), stats.getRequestsOverTime());
+    }
+
+    @Test
+    void hoursWithoutRequestsAreReportedAsZeroAndRollupsOutsideTheRangeIgnored() {
+        List<AuditStatsService.Rollup> rollups = List.of(
+                new AuditStatsService.Rollup(END.plusHours(2), AuditLog.RiskLevel.MEDIUM, false, 5, 2, 110));
+
+        AuditStatsResponse stats = AuditStatsService.aggregate(rollups, START, START.plusHours(3),
+                AuditStatsService.Granularity.HOUR);
+
+        assertEquals(0, stats.getTotalRequests());
+        assertEquals(3, stats.getRequestsOverTime().size());
+    }
+
+    @Test
+    void bucketsCountPartialOnes() {
+        assertEquals(3, AuditStatsService.Granularity.HOUR.buckets(START, START.plusHours(3)));
+        assertEquals(4, AuditStatsService.Granularity.HOUR.buckets(START.plusMinutes(30), START.plusHours(3).plusMinutes(1)));
+        assertEquals(2, AuditStatsService.Granularity.DAY.buckets(START.plusHours(23), START.plusDays(1).plusHours(1)));
+    }
+}
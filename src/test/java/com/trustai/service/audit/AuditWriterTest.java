@@ -0,0 +1,179 @@
+package com.trustai.service.audit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.trustai.config.AuditProperties;
+import com.trustai.model.entity.AuditLog;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.jdbc.CannotGetJdbcConnectionException;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AuditWriterTest {
+
+    @TempDir
+    Path directory;
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    private AuditWriter writer(int batchSize, AuditSink sink) throws Exception {
+        AuditProperties properties = new AuditProperties();
+        properties.getWriter().setDirectory(directory.toString());
+        properties.getWriter().setSegmentSizeMb(1);
+        properties.getWriter().setBatchSize(batchSize);
+        properties.getWriter().setFlushIntervalMs(50);
+        AuditWriter writer = new AuditWriter(properties, sink, new ObjectMapper().findAndRegisterModules(), registry);
+        writer.start();
+        return writer;
+    }
+
+    private static AuditEvent event(int i) {
+        return AuditEvent.builder()
+                .eventId("event-" + i)
+                .userId("user" + i + "@example.com")
+                .riskLevel(AuditLog.RiskLevel.LOW)
+                .metadata(Map.of("requestId", "r" + i))
+                .timestamp(LocalDateTime.of(2024, 1, 1, 0, 0))
+                .build();
+    }
+
+    @Test
+    void writesEverythingInBoundedBatchesAndDrainsOnStop() throws Exception {
+        List<AuditEvent> received = new CopyOnWriteArrayList<>();
+        List<Integer> batches = new CopyOnWriteArrayList<>();
+        AuditWriter writer = writer(100, batch -> {
+            batches.add(batch.size());
+            received.addAll(batch);
+        });
+
+        for (int i = 0; i < 1_050; i++) {
+            assertTrue(writer.submit(event(i)));
+        }
+        writer.stop();
+
+        assertEquals(1_050, received.size());
+        assertTrue(batches.stream().allMatch(size -> size <= 100));
+        assertEquals(event(7), received.get(7));
+    }
+
+    @Test
+    void keepsEventsOnDiskWhileDatabaseIsDownAndReplaysAfterRestart() throws Exception {
+        AuditWriter failing = writer(10, batch -> {
+            throw new CannotGetJdbcConnectionException("database unavailable");
+        });
+        for (int i = 0; i < 5; i++) {
+            failing.submit(event(i));
+        }
+        failing.stop();
+
+        List<AuditEvent> received = new CopyOnWriteArrayList<>();
+        AuditWriter restarted = writer(10, received::addAll);
+        restarted.stop();
+
+        assertEquals(List.of(event(0), event(1), event(2), event(3), event(4)), received);
+    }
+
+    @Test
+    void quarantinesAnEventThatCannotBeWrittenAndKeepsWritingTheRest() throws Exception {
+        List<AuditEvent> received = new CopyOnWriteArrayList<>();
+        AuditWriter writer = writer(10, batch -> {
+            if (batch.stream().anyMatch(event -> event.eventId().equals("event-3"))) {
+                throw new IllegalArgumentException("Audit metadata is not serializable");
+            }
+            received.addAll(batch);
+        });
+        for (int i = 0; i < 6; i++) {
+            writer.submit(event(i));
+        }
+        Thread.sleep(300);
+        writer.submit(event(6));
+        writer.stop();
+
+        assertEquals(List.of(event(0), event(1), event(2), event(4), event(5), event(6)), received);
+        List<String> quarantined = Files.readAllLines(directory.resolve("quarantine.ndjson"));
+        assertEquals(1, quarantined.size());
+        assertTrue(quarantined.get(0).contains("\"event-3\""));
+        assertEquals(1, registry.get("audit.writer.events").tag("result", "failed").counter().count());
+    }
+
+    @Test
+    void quarantinesARecordThatCannotBeDecoded() throws Exception {
+        SegmentLog log = new SegmentLog(directory, 1024 * 1024, 16);
+        log.append("{\"eventId\": ".getBytes(StandardCharsets.UTF_8));
+        log.close();
+
+        List<AuditEvent> received = new CopyOnWriteArrayList<>();
+        AuditWriter writer = writer(10, received::addAll);
+        writer.submit(event(1));
+        writer.stop();
+
+        assertEquals(List.of(event(1)), received);
+        assertEquals(List.of("{\"eventId\": "), Files.readAllLines(directory.resolve("quarantine.ndjson")));
+    }
+
+    @Test
+    void skipsPastARecordDamagedWhileRunning() throws Exception {
+        ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+        SegmentLog log = new SegmentLog(directory, 1024 * 1024, 16);
+        for (int i = 0; i < 6; i++) {
+            log.append(objectMapper.writeValueAsBytes(event(i)));
+        }
+        log.close();
+
+        CountDownLatch firstBatch = new CountDownLatch(1);
+        CountDownLatch damaged = new CountDownLatch(1);
+        List<AuditEvent> received = new CopyOnWriteArrayList<>();
+        AuditWriter writer = writer(2, batch -> {
+            firstBatch.countDown();
+            try {
+                damaged.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            received.addAll(batch);
+        });
+
+        // Flip a payload byte of the fourth record while the writer holds the first two
+        assertTrue(firstBatch.await(5, TimeUnit.SECONDS));
+        try (FileChannel segment = FileChannel.open(directory.resolve("0000000000.seg"),
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            long offset = 0;
+            ByteBuffer header = ByteBuffer.allocate(4);
+            for (int i = 0; i < 3; i++) {
+                segment.read(header.clear(), offset);
+                offset += 8 + header.getInt(0);
+            }
+            ByteBuffer payload = ByteBuffer.allocate(1);
+            segment.read(payload, offset + 8);
+            segment.write(payload.put(0, (byte) (payload.get(0) ^ 1)).rewind(), offset + 8);
+        }
+        damaged.countDown();
+
+        // The rest of the last segment is lost, and the writer carries on after it
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (registry.get("audit.writer.events").tag("result", "failed").counter().count() < 3
+                && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        writer.submit(event(6));
+        writer.stop();
+
+        assertEquals(List.of(event(0), event(1), event(2), event(6)), received);
+        assertEquals(3, registry.get("audit.writer.events").tag("result", "failed").counter().count());
+    }
+}
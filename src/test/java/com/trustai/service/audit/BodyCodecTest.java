@@ -0,0 +1,45 @@
+package com.trustai.service.audit;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BodyCodecTest {
+
+    @Test
+    void repetitiveTextIsDeflatedAndRestored() {
+        byte[] raw = "Summarize the quarterly report for the board. ".repeat(40).getBytes(StandardCharsets.UTF_8);
+
+        BodyCodec.Encoded encoded = BodyCodec.encode(raw);
+
+        assertEquals(BodyCodec.DEFLATE, encoded.codec());
+        assertTrue(encoded.content().length < raw.length / 4);
+        assertArrayEquals(raw, BodyCodec.decode(encoded.codec(), encoded.content(), raw.length));
+    }
+
+    @Test
+    void shortOrIncompressibleBodiesAreStoredAsIs() {
+        byte[] small = "hello".getBytes(StandardCharsets.UTF_8);
+        byte[] random = new byte[4096];
+        new Random(7).nextBytes(random);
+
+        assertSame(small, BodyCodec.encode(small).content());
+        assertEquals(BodyCodec.NONE, BodyCodec.encode(random).codec());
+        assertArrayEquals(random, BodyCodec.decode(BodyCodec.NONE, random, random.length));
+    }
+
+    @Test
+    void equalTextHasEqualHash() {
+        byte[] a = BodyCodec.hash("same prompt".getBytes(StandardCharsets.UTF_8));
+        byte[] b = BodyCodec.hash("same prompt".getBytes(StandardCharsets.UTF_8));
+
+        assertEquals(32, a.length);
+        assertArrayEquals(a, b);
+    }
+}
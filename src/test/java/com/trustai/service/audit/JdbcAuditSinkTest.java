@@ -0,0 +1,37 @@
+package com.trustai.service.audit;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class JdbcAuditSinkTest {
+
+    @Test
+    void insertStatementHasOneRowPerEventAndRollsUpOnlyNewRows() {
+        String sql = JdbcAuditSink.insertSql(3);
+        assertEquals(3, sql.split("CAST\\(\\? AS jsonb\\)", -1).length - 1);
+        assertEquals(3 * 17, sql.chars().filter(c -> c == '?').count());
+        assertTrue(sql.contains("ON CONFLICT (event_id, \"timestamp\") DO NOTHING RETURNING"));
+        assertTrue(sql.contains("FROM inserted GROUP BY"));
+    }
+
+    @Test
+    void promptPreviewDoesNotSplitCharacters() {
+        String prompt = "a".repeat(119) + "\uD83D\uDE00" + "b".repeat(50);
+
+        assertEquals(prompt.substring(0, 121), JdbcAuditSink.preview(prompt));
+        assertEquals("short", JdbcAuditSink.preview("short"));
+    }
+
+    @Test
+    void searchTextIndexesTheSanitizedPromptOnlyWhenItDiffers() {
+        assertEquals("ignore previous", JdbcAuditSink.searchText("ignore previous", "ignore previous"));
+        assertEquals("ignore previous\n[removed]", JdbcAuditSink.searchText("ignore previous", "[removed]"));
+        assertEquals("[removed]", JdbcAuditSink.searchText(null, "[removed]"));
+        assertNull(JdbcAuditSink.searchText(null, null));
+        assertEquals(JdbcAuditSink.SEARCH_TEXT_LENGTH,
+                JdbcAuditSink.searchText("x".repeat(JdbcAuditSink.SEARCH_TEXT_LENGTH + 1), null).length());
+    }
+}
@@ -0,0 +1,146 @@
+package com.trustai.service.audit;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SegmentLogTest {
+
+    @TempDir
+    Path directory;
+
+    private static byte[] record(int i) {
+        return ("record-" + i).getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static List<String> strings(List<byte[]> records) {
+        return records.stream().map(bytes -> new String(bytes, StandardCharsets.UTF_8)).toList();
+    }
+
+    @Test
+    void readsAcrossSegmentsAndDeletesConsumedOnes() throws Exception {
+        SegmentLog log = new SegmentLog(directory, 64, 10);
+        for (int i = 0; i < 10; i++) {
+            assertTrue(log.append(record(i)));
+        }
+        assertTrue(log.segmentCount() > 1);
+
+        List<byte[]> records = new ArrayList<>();
+        long next = log.read(log.checkpoint(), 100, records);
+        assertEquals(10, records.size());
+        assertEquals("record-9", strings(records).get(9));
+
+        log.commit(next);
+        assertEquals(1, log.segmentCount());
+        assertEquals(1, segmentFiles());
+    }
+
+    @Test
+    void resumesFromCheckpointAfterReopen() throws Exception {
+        SegmentLog log = new SegmentLog(directory, 64, 10);
+        for (int i = 0; i < 6; i++) {
+            log.append(record(i));
+        }
+        List<byte[]> first = new ArrayList<>();
+        log.commit(log.read(log.checkpoint(), 2, first));
+        log.close();
+
+        SegmentLog reopened = new SegmentLog(directory, 64, 10);
+        assertEquals(4, reopened.appended());
+        List<byte[]> rest = new ArrayList<>();
+        reopened.read(reopened.checkpoint(), 100, rest);
+        assertEquals(List.of("record-2", "record-3", "record-4", "record-5"), strings(rest));
+
+        assertTrue(reopened.append(record(6)));
+        rest.clear();
+        reopened.read(reopened.checkpoint(), 100, rest);
+        assertEquals("record-6", strings(rest).get(4));
+    }
+
+    @Test
+    void countsBacklogAcrossSegmentsOnReopenAndStopsAtACorruptRecord() throws Exception {
+        SegmentLog log = new SegmentLog(directory, 64, 10);
+        for (int i = 0; i < 9; i++) {
+            log.append(record(i));
+        }
+        log.close();
+        Path last;
+        try (Stream<Path> files = Files.list(directory)) {
+            last = files.filter(path -> path.toString().endsWith(".seg")).sorted().reduce((a, b) -> b).orElseThrow();
+        }
+        byte[] bytes = Files.readAllBytes(last);
+        // First payload byte of the only record in the last segment
+        bytes[8] ^= 1;
+        Files.write(last, bytes);
+
+        SegmentLog reopened = new SegmentLog(directory, 64, 10);
+        List<byte[]> records = new ArrayList<>();
+        reopened.read(reopened.checkpoint(), 100, records);
+        assertEquals(8, reopened.appended());
+        assertEquals(8, records.size());
+        assertEquals("record-7", strings(records).get(7));
+    }
+
+    @Test
+    void skipsToTheNextSegmentPastARecordDamagedAfterOpen() throws Exception {
+        // Four 16-byte records per 64-byte segment
+        SegmentLog log = new SegmentLog(directory, 64, 10);
+        for (int i = 0; i < 10; i++) {
+            log.append(record(i));
+        }
+        log.close();
+        SegmentLog reopened = new SegmentLog(directory, 64, 10);
+        try (FileChannel segment = FileChannel.open(directory.resolve("0000000001.seg"),
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            // First payload byte of record-5, the second record of the segment
+            segment.write(ByteBuffer.wrap(new byte[] {'R'}), 16 + 8);
+        }
+
+        List<byte[]> records = new ArrayList<>();
+        long damaged = reopened.read(reopened.checkpoint(), 100, records);
+        assertEquals(List.of("record-0", "record-1", "record-2", "record-3", "record-4"), strings(records));
+        assertEquals(damaged, reopened.read(damaged, 100, new ArrayList<>()));
+
+        SegmentLog.Resume resume = reopened.skipDamaged(damaged);
+        assertEquals(SegmentLog.position(2, 0), resume.position());
+        assertEquals(8, resume.recordsBefore());
+        records.clear();
+        reopened.read(resume.position(), 100, records);
+        assertEquals(List.of("record-8", "record-9"), strings(records));
+    }
+
+    @Test
+    void refusesAppendsBeyondSegmentLimit() throws Exception {
+        SegmentLog log = new SegmentLog(directory, 32, 2);
+        int accepted = 0;
+        while (log.append(record(accepted))) {
+            accepted++;
+        }
+        assertEquals(2, segmentFiles());
+        assertFalse(log.append(new byte[100]));
+
+        List<byte[]> records = new ArrayList<>();
+        log.commit(log.read(log.checkpoint(), 100, records));
+        assertEquals(accepted, records.size());
+        assertTrue(log.append(record(accepted)));
+    }
+
+    private long segmentFiles() throws Exception {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(path -> path.toString().endsWith(".seg")).count();
+        }
+    }
+}
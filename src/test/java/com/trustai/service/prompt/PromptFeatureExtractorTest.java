@@ -0,0 +1,54 @@
+package com.trustai.service.prompt;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PromptFeatureExtractorTest {
+
+    private static final String[] FRAGMENTS = {
+        "jailbreak", "JailBreak", "bypass", "BYPASS", "%", "\\x41", "\\u0041", "\\X", "select", "Drop",
+        "<b>", "<", ">", " ", "  ", "\t", "\n", "hello", "world", "é", "42", "."
+    };
+
+    @Test
+    void matchesTheChecksItReplaces() {
+        Random random = new Random(11);
+        for (int round = 0; round < 20_000; round++) {
+            StringBuilder prompt = new StringBuilder();
+            int parts = random.nextInt(12);
+            for (int i = 0; i < parts; i++) {
+                prompt.append(FRAGMENTS[random.nextInt(FRAGMENTS.length)]);
+            }
+            String text = prompt.toString();
+            PromptFeatures features = PromptFeatureExtractor.extract(text);
+
+            String lower = text.toLowerCase();
+            assertEquals(lower.contains("jailbreak") || lower.contains("bypass"), features.getRiskKeywordHits() > 0, text);
+            assertEquals(text.contains("%") || text.contains("\\x") || text.contains("\\u"), features.hasEncodingMarkers(), text);
+            assertEquals(text.length(), features.getLength());
+            if (features.isSanitizationNoop()) {
+                assertSame(text, PromptSanitizer.sanitize(text), text);
+            }
+        }
+    }
+
+    @Test
+    void countsCharacterClassesAndRepetition() {
+        String prompt = "Ab1 é\t." + "spam spam spam spam ".repeat(20);
+        PromptFeatures features = PromptFeatureExtractor.extract(prompt);
+
+        assertEquals(2 + 4 * 4 * 20, features.count(PromptFeatures.CharClass.LETTER));
+        assertEquals(1, features.count(PromptFeatures.CharClass.DIGIT));
+        assertEquals(1, features.count(PromptFeatures.CharClass.NON_ASCII));
+        assertEquals(1, features.count(PromptFeatures.CharClass.CONTROL));
+        assertEquals(RepetitionDetector.analyze(prompt), features.getRepetition());
+        assertFalse(features.isSanitizationNoop());
+        assertTrue(PromptFeatureExtractor.extract("plain question about the weather").isSanitizationNoop());
+    }
+}
@@ -0,0 +1,77 @@
+package com.trustai.service.prompt;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class PromptSanitizerTest {
+
+    private static final String[] FRAGMENTS = {
+        "a", "B", " ", "  ", "\t", "\n", "\r\n", "\u0000", "\u001F", "\u007F", "\u000B", "\u0085",
+        "\u2028", "\u2029", "\u00A0", "<", ">", "<>", "<b>", "</b>", "<script>", "</SCRIPT>",
+        "alert(1)", "select", "SeLeCt", "sel", "ect", "union", "drop", "exec", "execute", "update",
+        "Create", "alter", "insert", "delete", "hello", "world", "é", "😀", "d", "u"
+    };
+
+    @Test
+    void matchesTheRegexChainOnKnownInputs() {
+        List<String> prompts = List.of(
+            "Explain machine learning",
+            "  leading and trailing  ",
+            "a\tb\nc",
+            "<b>bold</b> text",
+            "<> stays",
+            "<<x>script>",
+            "<script>alert('x')</script> after",
+            "please SELECT * FROM users; and more",
+            "sel<i>ect</i> from",
+            "drop table next line union\u0085tail",
+            "unclosed <tag and > later",
+            "x <\n> y"
+        );
+        for (String prompt : prompts) {
+            assertEquals(reference(prompt), PromptSanitizer.sanitize(prompt), prompt);
+        }
+    }
+
+    @Test
+    void matchesTheRegexChainOnRandomInputs() {
+        Random random = new Random(7);
+        for (int i = 0; i < 20_000; i++) {
+            StringBuilder prompt = new StringBuilder();
+            int parts = random.nextInt(40);
+            for (int p = 0; p < parts; p++) {
+                prompt.append(FRAGMENTS[random.nextInt(FRAGMENTS.length)]);
+            }
+            String input = prompt.toString();
+            assertEquals(reference(input), PromptSanitizer.sanitize(input), input);
+        }
+    }
+
+    @Test
+    void returnsTheInputWhenNothingChanges() {
+        String prompt = "Nothing to strip here";
+        assertSame(prompt, PromptSanitizer.sanitize(prompt));
+        assertNull(PromptSanitizer.sanitize(null));
+        assertEquals("", PromptSanitizer.sanitize(""));
+    }
+
+    /** The rules as previously implemented in PromptSanitizationService.sanitize. */
+    private static String reference(String prompt) {
+        if (prompt == null || prompt.isEmpty()) {
+            return prompt;
+        }
+        String sanitized = prompt;
+        sanitized = sanitized.replaceAll("[\\x00-\\x1F\\x7F]", "");
+        sanitized = sanitized.replaceAll("\\s+", " ").trim();
+        sanitized = sanitized.replaceAll("<[^>]+>", "");
+        sanitized = sanitized.replaceAll("(?i)<script[^>]*>.*?</script>", "");
+        sanitized = sanitized.replaceAll("(?i)(union|select|insert|update|delete|drop|create|alter|exec|execute).*", "");
+        return sanitized;
+    }
+}
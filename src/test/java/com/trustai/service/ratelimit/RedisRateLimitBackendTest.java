@@ -0,0 +1,235 @@
+package com.trustai.service.ratelimit;
+
+import com.trustai.config.RateLimitProperties;
+import io.lettuce.core.ClientOptions;
+import io.lettuce.core.TimeoutOptions;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceClientConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import redis.embedded.RedisServer;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs the distributed backend against a real Redis server started from the embedded-redis binary.
+ */
+class RedisRateLimitBackendTest {
+
+    private static RedisServer redis;
+    private static int port;
+
+    private final List<Runnable> cleanup = new ArrayList<>();
+
+    @BeforeAll
+    static void startRedis() throws IOException {
+        port = freePort();
+        redis = startRedis(port);
+    }
+
+    @AfterAll
+    static void stopRedis() throws IOException {
+        redis.stop();
+    }
+
+    @AfterEach
+    void closeBackends() {
+        cleanup.forEach(Runnable::run);
+    }
+
+    @Test
+    void instancesShareOneLimit() {
+        RateLimitRequest request = user("shared", 40);
+        RedisRateLimitBackend first = backend(port, properties(60_000), new SimpleMeterRegistry());
+        RedisRateLimitBackend second = backend(port, properties(60_000), new SimpleMeterRegistry());
+
+        int granted = 0;
+        boolean firstOpen = true;
+        boolean secondOpen = true;
+        while (firstOpen || secondOpen) {
+            if (firstOpen && (firstOpen = TokenBucket.consumed(first.tryConsume(request, 1)))) {
+                granted++;
+            }
+            if (secondOpen && (secondOpen = TokenBucket.consumed(second.tryConsume(request, 1)))) {
+                granted++;
+            }
+        }
+
+        assertEquals(40, granted);
+    }
+
+    @Test
+    void unusedReservationsReturnToRedisAfterTheirTtl() throws InterruptedException {
+        RateLimitRequest request = user("ttl", 40);
+        RedisRateLimitBackend idle = backend(port, properties(100), new SimpleMeterRegistry());
+        RedisRateLimitBackend busy = backend(port, properties(60_000), new SimpleMeterRegistry());
+
+        // Reserves a batch of two and parks the second token
+        assertTrue(TokenBucket.consumed(idle.tryConsume(request, 1)));
+        assertEquals(38, drain(busy, request));
+
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (!TokenBucket.consumed(busy.tryConsume(request, 1))) {
+            assertTrue(System.nanoTime() < deadline, "parked token never returned");
+            Thread.sleep(20);
+        }
+        assertFalse(TokenBucket.consumed(busy.tryConsume(request, 1)));
+    }
+
+    @Test
+    void reservationsReturnOnShutdown() {
+        RateLimitRequest request = user("shutdown", 40);
+        RedisRateLimitBackend leaving = backend(port, properties(60_000), new SimpleMeterRegistry());
+        RedisRateLimitBackend staying = backend(port, properties(60_000), new SimpleMeterRegistry());
+
+        assertTrue(TokenBucket.consumed(leaving.tryConsume(request, 1)));
+        leaving.shutdown();
+
+        assertEquals(39, drain(staying, request));
+    }
+
+    @Test
+    void rejectedRequestDoesNotChargeTheOtherDimensions() {
+        RedisRateLimitBackend backend = backend(port, properties(60_000), new SimpleMeterRegistry());
+        RateLimitRequest throughSmallIp = RateLimitRequest.builder()
+                .add(RateLimitRequest.Dimension.USER, "refund", 40)
+                .add(RateLimitRequest.Dimension.IP, "10.0.0.1", 2)
+                .build();
+
+        assertEquals(2, drain(backend, throughSmallIp));
+        for (int i = 0; i < 10; i++) {
+            assertFalse(TokenBucket.consumed(backend.tryConsume(throughSmallIp, 1)));
+        }
+
+        assertEquals(38, drain(backend, user("refund", 40)));
+    }
+
+    @Test
+    void concurrentRequestsWithShortReservationsNeitherLoseNorDuplicateTokens() throws Exception {
+        RateLimitRequest request = user("concurrent", 400);
+        // Reservations expire while requests are in flight, exercising the closed-reservation retry
+        RedisRateLimitBackend first = backend(port, properties(1), new SimpleMeterRegistry());
+        RedisRateLimitBackend second = backend(port, properties(1), new SimpleMeterRegistry());
+
+        AtomicInteger granted = new AtomicInteger();
+        CountDownLatch done = new CountDownLatch(8);
+        for (int t = 0; t < 8; t++) {
+            RedisRateLimitBackend backend = t % 2 == 0 ? first : second;
+            Thread.ofPlatform().start(() -> {
+                for (int i = 0; i < 100; i++) {
+                    if (TokenBucket.consumed(backend.tryConsume(request, 1))) {
+                        granted.incrementAndGet();
+                    }
+                }
+                done.countDown();
+            });
+        }
+        done.await();
+        first.shutdown();
+        second.shutdown();
+        // Reservations that expired earlier are handed back by removal listeners on the common pool
+        ForkJoinPool.commonPool().awaitQuiescence(5, TimeUnit.SECONDS);
+
+        int left = drain(backend(port, properties(60_000), new SimpleMeterRegistry()), request);
+        assertTrue(granted.get() <= 400);
+        assertEquals(400, granted.get() + left);
+    }
+
+    @Test
+    void fallsBackToLocalBucketsWhenRedisIsUnreachable() throws IOException {
+        int ownPort = freePort();
+        RedisServer own = startRedis(ownPort);
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        RedisRateLimitBackend backend = backend(ownPort, properties(60_000), registry);
+        RateLimitRequest reserved = user("fallback", 40);
+        assertTrue(TokenBucket.consumed(backend.tryConsume(reserved, 1)));
+        own.stop();
+
+        // The user key is served from its reservation, the new IP key needs Redis and fails
+        RateLimitRequest withNewKey = RateLimitRequest.builder()
+                .add(RateLimitRequest.Dimension.USER, "fallback", 40)
+                .add(RateLimitRequest.Dimension.IP, "10.0.0.2", 40)
+                .build();
+        long result = backend.tryConsume(withNewKey, 1);
+        assertTrue(TokenBucket.consumed(result));
+        assertEquals(39, TokenBucket.remaining(result)); // fresh local buckets
+        assertEquals(1, registry.get("rate.limit.redis.errors").counter().count());
+
+        // The token charged before the failure went back to the reservation, so no Redis call is needed
+        assertTrue(TokenBucket.consumed(backend.tryConsume(reserved, 1)));
+        assertEquals(1, registry.get("rate.limit.redis.errors").counter().count());
+    }
+
+    private static RateLimitRequest user(String user, int limit) {
+        return RateLimitRequest.builder().add(RateLimitRequest.Dimension.USER, user, limit).build();
+    }
+
+    private static int drain(RedisRateLimitBackend backend, RateLimitRequest request) {
+        int granted = 0;
+        while (TokenBucket.consumed(backend.tryConsume(request, 1))) {
+            granted++;
+        }
+        return granted;
+    }
+
+    private static RateLimitProperties properties(long reservationTtlMs) {
+        RateLimitProperties properties = new RateLimitProperties();
+        properties.setMode(RateLimitProperties.Mode.DISTRIBUTED);
+        properties.getDistributed().setReservationTtlMs(reservationTtlMs);
+        return properties;
+    }
+
+    private RedisRateLimitBackend backend(int port, RateLimitProperties properties, SimpleMeterRegistry registry) {
+        // Timeouts as configured by Spring Boot, with a short command timeout
+        LettuceConnectionFactory connectionFactory = new LettuceConnectionFactory(
+                new RedisStandaloneConfiguration("127.0.0.1", port),
+                LettuceClientConfiguration.builder()
+                        .commandTimeout(Duration.ofMillis(300))
+                        .clientOptions(ClientOptions.builder().timeoutOptions(TimeoutOptions.enabled()).build())
+                        .build());
+        connectionFactory.afterPropertiesSet();
+        connectionFactory.start();
+        LocalRateLimitBackend fallback = new LocalRateLimitBackend(properties, registry);
+        fallback.init();
+        RedisRateLimitBackend backend = new RedisRateLimitBackend(properties, connectionFactory, fallback, registry);
+        backend.init();
+        cleanup.add(() -> {
+            backend.shutdown();
+            connectionFactory.destroy();
+        });
+        return backend;
+    }
+
+    private static RedisServer startRedis(int port) throws IOException {
+        RedisServer server = RedisServer.newRedisServer()
+                .port(port)
+                .bind("127.0.0.1")
+                .setting("save \"\"")
+                .setting("appendonly no")
+                .build();
+        server.start();
+        return server;
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
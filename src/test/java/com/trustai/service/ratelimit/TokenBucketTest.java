@@ -0,0 +1,75 @@
+package com.trustai.service.ratelimit;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TokenBucketTest {
+
+    private static final long SECOND = 1_000_000_000L;
+
+    @Test
+    void refillsToCapacityAtEachWindow() {
+        TokenBucket bucket = new TokenBucket(3, 60 * SECOND, 0, 8);
+
+        long first = bucket.tryConsume(1, 10 * SECOND);
+        assertTrue(TokenBucket.consumed(first));
+        assertEquals(2, TokenBucket.remaining(first));
+        assertEquals(50 * SECOND, TokenBucket.nanosUntilRefill(first));
+
+        assertTrue(TokenBucket.consumed(bucket.tryConsume(2, 20 * SECOND)));
+        long rejected = bucket.tryConsume(1, 59 * SECOND);
+        assertFalse(TokenBucket.consumed(rejected));
+        assertEquals(0, TokenBucket.remaining(rejected));
+        assertEquals(SECOND, TokenBucket.nanosUntilRefill(rejected));
+
+        long nextWindow = bucket.tryConsume(1, 61 * SECOND);
+        assertTrue(TokenBucket.consumed(nextWindow));
+        assertEquals(2, TokenBucket.remaining(nextWindow));
+    }
+
+    @Test
+    void refundIsCappedAndDoesNotCrossWindows() {
+        TokenBucket bucket = new TokenBucket(5, SECOND, 0, 8);
+        bucket.tryConsume(3, 0);
+        bucket.refund(10, 1);
+        assertEquals(4, TokenBucket.remaining(bucket.tryConsume(1, 2)));
+        bucket.tryConsume(4, 3);
+        bucket.refund(2, SECOND + 1);
+        assertEquals(4, TokenBucket.remaining(bucket.tryConsume(1, SECOND + 2)));
+    }
+
+    @Test
+    void neverGrantsMoreThanCapacityUnderContention() throws InterruptedException {
+        TokenBucket bucket = new TokenBucket(10_000, 3600 * SECOND, System.nanoTime(), 2);
+        AtomicInteger granted = new AtomicInteger();
+        int threads = 16;
+        CountDownLatch start = new CountDownLatch(1);
+        Thread[] workers = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            workers[t] = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < 2_000; i++) {
+                    if (TokenBucket.consumed(bucket.tryConsume(1, System.nanoTime()))) {
+                        granted.incrementAndGet();
+                    }
+                }
+            });
+            workers[t].start();
+        }
+        start.countDown();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        assertEquals(10_000, granted.get());
+    }
+}
@@ -0,0 +1,65 @@
+package com.trustai.util;
+
+import org.apache.catalina.connector.Connector;
+import org.apache.catalina.connector.Request;
+import org.apache.catalina.connector.Response;
+import org.apache.catalina.valves.RemoteIpValve;
+import org.apache.catalina.valves.ValveBase;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.web.ServerProperties;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.env.YamlPropertySourceLoader;
+import org.springframework.core.env.PropertySource;
+import org.springframework.core.env.StandardEnvironment;
+import org.springframework.core.io.ClassPathResource;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ClientIpResolverTest {
+
+    @Test
+    void forwardedRequestFromTheComposeNetworkIsKeyedByTheClient() throws Exception {
+        RemoteIpValve valve = remoteIpValve();
+
+        assertEquals("203.0.113.7", resolve(valve, "172.18.0.5", "198.51.100.1, 203.0.113.7"));
+        assertEquals("203.0.113.7", resolve(valve, "127.0.0.1", "203.0.113.7"));
+        // A client that is not a trusted proxy cannot choose its own address
+        assertEquals("203.0.113.7", resolve(valve, "203.0.113.7", "198.51.100.1"));
+    }
+
+    /** The valve Spring Boot installs for {@code forward-headers-strategy: native}, with the shipped settings. */
+    private static RemoteIpValve remoteIpValve() throws Exception {
+        StandardEnvironment environment = new StandardEnvironment();
+        for (PropertySource<?> source : new YamlPropertySourceLoader()
+                .load("application.yml", new ClassPathResource("application.yml"))) {
+            environment.getPropertySources().addLast(source);
+        }
+        ServerProperties server = Binder.get(environment).bindOrCreate("server", ServerProperties.class);
+        assertEquals(ServerProperties.ForwardHeadersStrategy.NATIVE, server.getForwardHeadersStrategy());
+
+        ServerProperties.Tomcat.Remoteip remoteip = server.getTomcat().getRemoteip();
+        RemoteIpValve valve = new RemoteIpValve();
+        valve.setInternalProxies(remoteip.getInternalProxies());
+        valve.setRemoteIpHeader(remoteip.getRemoteIpHeader() != null ? remoteip.getRemoteIpHeader() : "X-Forwarded-For");
+        return valve;
+    }
+
+    private static String resolve(RemoteIpValve valve, String peer, String forwardedFor) throws Exception {
+        AtomicReference<String> resolved = new AtomicReference<>();
+        valve.setNext(new ValveBase() {
+            @Override
+            public void invoke(Request request, Response response) {
+                resolved.set(ClientIpResolver.resolve(request));
+            }
+        });
+        Request request = new Request(new Connector());
+        request.setCoyoteRequest(new org.apache.coyote.Request());
+        request.setRemoteAddr(peer);
+        request.setRemoteHost(peer);
+        request.getCoyoteRequest().getMimeHeaders().addValue("X-Forwarded-For").setString(forwardedFor);
+        valve.invoke(request, new Response());
+        return resolved.get();
+    }
+}